@@ -1,11 +1,15 @@
 package src;
 
 import src.board.Board;
+import src.cpu.WorldStrategy;
 import src.graph.BoardGraph;
 import src.movement.Direction;
 import src.movement.MoveResult;
 import src.movement.SlideSimulator;
+import src.player.EngineSession;
+import src.sim.ReplayRecorder;
 import src.ui.GameFrame;
+import src.world.ChunkedWorld;
 
 public class Game {
     private BoardGraph graph;
@@ -17,29 +21,123 @@ public class Game {
     private int cpuScore = 0;
     private final int maxHops = 50;
     private int currentPlayer; // 0: Human, 1: CPU
+    private int crashedPlayer = -1; // who hit a virus, -1 if nobody
+    private final String cpuStrategy; // "greedy" or "mcts", see CPUPlayer.createStrategy; "world" for a ChunkedWorld
+    private final boolean pondering;  // CPU searches its replies during the human's turn
+    private EngineSession engine;     // CPU engine and its caches, kept across turns
+    private ReplayRecorder recorder;  // null unless games are being recorded
+    private ChunkedWorld world;       // large-board mode, instead of board and graph
+    private WorldStrategy worldCpu;
 
     public Game() {
-        this.board = new Board(10, 8);
+        this("greedy");
+    }
+
+    public Game(String cpuStrategy) {
+        this(cpuStrategy, false);
+    }
+
+    public Game(String cpuStrategy, boolean pondering) {
+        this(new Board(10, 8), cpuStrategy, pondering);
+    }
+
+    /** Game on a given board, e.g. one built from a seed; resetGame draws its next layout. */
+    public Game(Board board, String cpuStrategy, boolean pondering) {
+        this.cpuStrategy = cpuStrategy;
+        this.pondering = pondering;
+        this.board = board;
         this.graph = new BoardGraph(board);
         resetGame();
     }
 
+    /**
+     * Large-board mode: the game is played on a chunked world of any size, which the
+     * Board and BoardGraph model cannot hold. The CPU side is a WorldStrategy rather than
+     * an engine session; replay logs and pondering are not available.
+     */
+    public Game(ChunkedWorld world) {
+        this.cpuStrategy = "world";
+        this.pondering = false;
+        this.world = world;
+        startLayout();
+    }
+
     public void resetGame() {
-        board.generateNewLayout();
-        graph.reinitialize(board);
-        initialTotalData = graph.getTotalData();
+        if (world != null) {
+            world.generateNewWorld();
+        } else {
+            board.generateNewLayout();
+        }
+        startLayout();
+    }
+
+    /** New game on the layout given by {@code layoutSeed}. */
+    public void resetGame(long layoutSeed) {
+        if (world != null) {
+            world.reset(layoutSeed);
+        } else {
+            board.generateNewLayout(layoutSeed);
+        }
+        startLayout();
+    }
+
+    /** New game on a fixed layout of TileType ordinals, e.g. from a BoardCorpus. */
+    public void resetGame(byte[] layout) {
+        if (world != null) {
+            throw new IllegalStateException("A chunked world has no fixed layouts");
+        }
+        board.loadLayout(layout);
+        startLayout();
+    }
+
+    /** New game on the current layout, e.g. to play it again with sides swapped. */
+    public void replayLayout() {
+        if (world != null) {
+            world.reset(world.getSeed());
+        }
+        startLayout();
+    }
+
+    private void startLayout() {
+        if (world == null) {
+            graph.reinitialize(board);
+        }
+        initialTotalData = getRemainingData();
         isGameOver = false;
         hops = 0;
         humanScore = 0;
         cpuScore = 0;
         currentPlayer = 0; // Human starts
+        crashedPlayer = -1;
+
+        // Same engine for the next game, minus everything it knew about the old layout
+        if (engine != null) {
+            engine.newLayout();
+        }
+        if (recorder != null) {
+            recorder.start(board);
+        }
+    }
+
+    /**
+     * Records every game from now on into {@code recorder}, the current one too if no hop
+     * has been played yet. null stops recording.
+     */
+    public void setReplayRecorder(ReplayRecorder recorder) {
+        if (world != null && recorder != null) {
+            throw new IllegalStateException("Replay logs record Board games only");
+        }
+        this.recorder = recorder;
+        if (recorder != null && hops == 0 && !isGameOver) {
+            recorder.start(board);
+        }
     }
 
     // Perform a move, return message or null if success
     public String doMove(Direction moveDir) {
         if (isGameOver || hops >= maxHops) return "Game Over!";
 
-        MoveResult result = SlideSimulator.simulate(graph, moveDir);
+        MoveResult result = world != null ? world.move(moveDir) : SlideSimulator.simulate(graph, moveDir);
 
         if (result.success) {
             hops++;
@@ -49,15 +147,23 @@ public class Game {
                 cpuScore += result.dataCollected;
             }
 
+            if (recorder != null) {
+                recorder.move(moveDir, result.dataCollected, graph);
+            }
+
             if (result.isDead) {
                 isGameOver = true;
+                crashedPlayer = currentPlayer;
+                endReplay();
                 return "SYSTEM FAILURE! Packet corrupted by Virus.\n" +
                        (currentPlayer == 0 ? "CPU Wins!" : "Human Wins!");
-            } else if (graph.getTotalData() == 0) {
+            } else if (getRemainingData() == 0) {
                 isGameOver = true;
+                endReplay();
                 return "DOWNLOAD COMPLETE! All data packets collected.";
             } else if (hops >= maxHops) {
                 isGameOver = true;
+                endReplay();
                 return "Maximum hops reached.";
             } else {
                 // Switch turn
@@ -70,6 +176,30 @@ public class Game {
         }
     }
 
+    /**
+     * The side to move has no playable direction, so the other side moves. Counts as a
+     * hop, so a board where both sides are stuck still ends at maxHops.
+     */
+    public void passTurn() {
+        if (isGameOver) return;
+        if (recorder != null) {
+            recorder.pass(graph);
+        }
+        hops++;
+        if (hops >= maxHops) {
+            isGameOver = true;
+            endReplay();
+        } else {
+            currentPlayer = 1 - currentPlayer;
+        }
+    }
+
+    private void endReplay() {
+        if (recorder != null) {
+            recorder.end(getWinner());
+        }
+    }
+
     public boolean isHumanTurn() {
         return currentPlayer == 0;
     }
@@ -82,8 +212,43 @@ public class Game {
     public int getCpuScore() { return cpuScore; }
     public int getHops() { return hops; }
     public int getMaxHops() { return maxHops; }
-    public int getRemainingData() { return graph.getTotalData(); }
+    public int getRemainingData() {
+        return world != null ? (int) Math.min(Integer.MAX_VALUE, world.getTotalData()) : graph.getTotalData();
+    }
+    /** null in large-board mode. */
     public BoardGraph getGraph() { return graph; }
+    /** The chunked world in large-board mode, otherwise null. */
+    public ChunkedWorld getWorld() { return world; }
+    public String getCpuStrategy() { return cpuStrategy; }
+    public boolean isPondering() { return pondering; }
+    public int getCurrentPlayer() { return currentPlayer; }
+
+    /** CPU engine session, created on first use so headless games that bring their own players skip it. */
+    public EngineSession getEngine() {
+        if (world != null) {
+            throw new IllegalStateException("Large-board mode has no engine session, see getWorldCpu");
+        }
+        if (engine == null) {
+            engine = new EngineSession(cpuStrategy);
+        }
+        return engine;
+    }
+
+    /** CPU of large-board mode, created on first use. */
+    public WorldStrategy getWorldCpu() {
+        if (worldCpu == null) {
+            worldCpu = new WorldStrategy();
+        }
+        return worldCpu;
+    }
+
+    /** 0 (human side) or 1 (CPU side) once the game is over, -1 for a tie. Hitting a virus loses. */
+    public int getWinner() {
+        if (crashedPlayer >= 0) return 1 - crashedPlayer;
+        if (humanScore > cpuScore) return 0;
+        if (cpuScore > humanScore) return 1;
+        return -1;
+    }
 
     public String getWinnerMessage() {
         if (humanScore > cpuScore) return "Human Wins!";
@@ -91,9 +256,36 @@ public class Game {
         return "It's a Tie!";
     }
 
+    // Usage: java src.Game [--cpu=greedy|mcts] [--ponder]
+    //        java src.Game --world=WIDTHxHEIGHT [--seed=S]   large-board mode
     public static void main(String[] args) {
+        String strategy = "greedy";
+        boolean ponder = false;
+        String worldSize = null;
+        long seed = System.nanoTime();
+        for (String arg : args) {
+            if (arg.startsWith("--cpu=")) strategy = arg.substring("--cpu=".length());
+            if (arg.equals("--ponder")) ponder = true;
+            if (arg.startsWith("--world=")) worldSize = arg.substring("--world=".length());
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+        }
+        src.player.CPUPlayer.createStrategy(strategy); // fail fast on a bad name
+
+        ChunkedWorld world = null;
+        if (worldSize != null) {
+            int x = worldSize.toLowerCase().indexOf('x');
+            if (x < 0) {
+                throw new IllegalArgumentException("Expected --world=WIDTHxHEIGHT, got " + worldSize);
+            }
+            world = new ChunkedWorld(Integer.parseInt(worldSize.substring(0, x)),
+                    Integer.parseInt(worldSize.substring(x + 1)), seed);
+        }
+
+        final String cpuStrategy = strategy;
+        final boolean pondering = ponder;
+        final ChunkedWorld startWorld = world;
         javax.swing.SwingUtilities.invokeLater(() -> {
-            Game game = new Game();
+            Game game = startWorld != null ? new Game(startWorld) : new Game(cpuStrategy, pondering);
             new src.ui.GameFrame(game);
         });
     }
@@ -0,0 +1,123 @@
+package src.bench;
+
+import java.lang.management.ManagementFactory;
+
+import src.board.Board;
+import src.board.TileType;
+import src.cpu.GreedyStrategy;
+import src.graph.BoardGraph;
+import src.movement.Direction;
+
+/**
+ * Bytes allocated per steady-state GreedyStrategy turn, measured with the thread's
+ * allocation counter. The strategy plays both sides of whole games with makeMove, each on
+ * a new seeded layout, so every measured turn searches a position it has not seen. Only
+ * the getBestDirection calls are counted; building the layouts and playing the moves are
+ * not. Each pass also makes as many back-to-back counter reads with nothing between them
+ * and subtracts what those allocated.
+ *
+ * What it guarantees: the measured games are replayed PASSES times with the same seeds,
+ * so a search that allocates on any of their positions allocates in every pass, and the
+ * run exits with status 1. Work the JIT does on the measuring thread shortly after
+ * warm-up (a late compile, a deoptimization) shows up as a few bytes in one pass only,
+ * so a run fails only if no pass was clean.
+ *
+ * Run: java src.bench.AllocationBench [turns]
+ */
+public class AllocationBench {
+
+    private static final int MAX_HOPS = 50; // as Game
+    private static final int PASSES = 5;
+    private static final long WARMUP_SEED = 1_000_000; // warm-up layouts are not measured ones
+
+    public static void main(String[] args) {
+        int turns = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counters are not supported by this JVM");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        GreedyStrategy strategy = new GreedyStrategy(42);
+        strategy.setVerbose(false);
+
+        // Warm-up: JIT, search buffers and the transposition table reach their final size
+        play(strategy, threads, 2000, WARMUP_SEED);
+        readOverhead(threads, 2000);
+
+        int cleanPasses = 0;
+        for (int pass = 1; pass <= PASSES; pass++) {
+            strategy.setSeed(42); // same tie-breaks, so every pass plays the same games
+            long[] measured = play(strategy, threads, turns, 1);
+            long overhead = readOverhead(threads, turns);
+            long bytes = Math.max(0, measured[0] - overhead);
+
+            System.out.printf("pass %d: turns=%d  games=%d  bytes/turn=%.1f  us/turn=%.1f  counter reads=%d B%n",
+                    pass, turns, measured[2], (double) bytes / turns, measured[1] / 1e3 / turns, overhead);
+            if (bytes == 0) {
+                cleanPasses++;
+            }
+        }
+
+        if (cleanPasses == 0) {
+            System.out.println("FAIL: steady-state turns allocated in all " + PASSES + " passes");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays games on layouts seed, seed + 1, ... until {@code turns} searches have run.
+     * Returns {bytes allocated by the searches, nanoseconds spent in them, games started}.
+     */
+    private static long[] play(GreedyStrategy strategy, com.sun.management.ThreadMXBean threads,
+                               int turns, long seed) {
+        long id = Thread.currentThread().getId();
+        long bytes = 0;
+        long nanos = 0;
+        long games = 0;
+        BoardGraph graph = null;
+        int hops = 0;
+
+        for (int turn = 0; turn < turns; turn++) {
+            if (graph == null) {
+                graph = new BoardGraph(Board.fromSeed(seed + games));
+                strategy.clear(); // as CPUPlayer.newLayout does
+                games++;
+                hops = 0;
+            }
+
+            long before = threads.getThreadAllocatedBytes(id);
+            long start = System.nanoTime();
+            Direction dir = strategy.getBestDirection(graph, MAX_HOPS - hops);
+            nanos += System.nanoTime() - start;
+            bytes += threads.getThreadAllocatedBytes(id) - before;
+
+            // A pass or a blocked move still costs the hop, so every game ends
+            hops++;
+            if (dir != null && graph.makeMove(dir) >= 0) {
+                if (graph.getPlayerNode().getType() == TileType.VIRUS || graph.getTotalData() == 0) {
+                    graph = null;
+                    continue;
+                }
+            }
+            if (hops >= MAX_HOPS) {
+                graph = null;
+            }
+        }
+        return new long[] {bytes, nanos, games};
+    }
+
+    // What the counter reads cost on their own, over as many read pairs as play() makes
+    private static long readOverhead(com.sun.management.ThreadMXBean threads, int pairs) {
+        long id = Thread.currentThread().getId();
+        long bytes = 0;
+        for (int i = 0; i < pairs; i++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            bytes += threads.getThreadAllocatedBytes(id) - before;
+        }
+        return bytes;
+    }
+}
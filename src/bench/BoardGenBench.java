@@ -0,0 +1,107 @@
+package src.bench;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+import src.board.Board;
+import src.board.BoardRandomizer;
+import src.board.Tile;
+import src.board.TileType;
+import src.movement.Direction;
+
+/**
+ * Board generation throughput in accepted boards per second.
+ * "objects" redoes what every retry used to cost: a Tile per cell and a LinkedList BFS
+ * over them (the temporary BoardGraph it also built is left out, so this understates the
+ * old cost). "compact" is Board.generateNewLayout: byte layout plus the slide reachability
+ * check, which is stricter than the old neighbour walk and rejects more layouts.
+ *
+ * Run: java src.bench.BoardGenBench [seconds per row]
+ */
+public class BoardGenBench {
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        int[][] sizes = {{10, 8}, {64, 64}, {256, 256}, {1024, 1024}};
+
+        System.out.printf("%-10s %14s %14s %8s%n", "board", "objects/s", "compact/s", "speedup");
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            boolean objects = width * height <= 256 * 256;
+
+            double objectRate = objects ? rate(seconds, () -> objectPath(width, height)) : 0;
+            double compactRate = rate(seconds, () -> compactPath(width, height));
+
+            System.out.printf("%-10s %14s %14.1f %8s%n", width + "x" + height,
+                    objects ? String.format("%.1f", objectRate) : "-", compactRate,
+                    objects ? String.format("%.1fx", compactRate / objectRate) : "-");
+        }
+    }
+
+    private static BoardRandomizer objectRandomizer;
+    private static Tile[][] objectGrid;
+    private static Board compactBoard;
+
+    // Boards per second, after a warm-up of the same length
+    private static double rate(double seconds, Runnable generate) {
+        objectRandomizer = null;
+        compactBoard = null;
+        for (int pass = 0; pass < 2; pass++) {
+            long end = System.nanoTime() + (long) (seconds * 1e9);
+            long start = System.nanoTime();
+            int boards = 0;
+            do {
+                generate.run();
+                boards++;
+            } while (System.nanoTime() < end);
+            if (pass == 1) {
+                return boards / ((System.nanoTime() - start) / 1e9);
+            }
+        }
+        return 0;
+    }
+
+    private static void compactPath(int width, int height) {
+        if (compactBoard == null) {
+            compactBoard = Board.fromSeed(width, height, 1);
+        }
+        compactBoard.generateNewLayout();
+    }
+
+    private static void objectPath(int width, int height) {
+        if (objectRandomizer == null) {
+            objectRandomizer = new BoardRandomizer(1);
+            objectGrid = new Tile[height][width];
+        }
+        do {
+            objectRandomizer.randomize(objectGrid, width, height);
+        } while (!reachable(objectGrid, width, height));
+    }
+
+    // The old validity rule of Board, walked the way it used to be
+    private static boolean reachable(Tile[][] grid, int width, int height) {
+        Queue<int[]> queue = new LinkedList<>();
+        boolean[][] visited = new boolean[height][width];
+        queue.add(new int[] {0, 0});
+        visited[0][0] = true;
+        int hubs = 0;
+        int data = 0;
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            TileType type = grid[cell[1]][cell[0]].getType();
+            if (type == TileType.HUB) hubs++;
+            if (type == TileType.DATA) data++;
+            for (Direction d : Direction.ALL) {
+                int nx = cell[0] + d.dx;
+                int ny = cell[1] + d.dy;
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && !visited[ny][nx]
+                        && grid[ny][nx].getType() != TileType.FIREWALL) {
+                    visited[ny][nx] = true;
+                    queue.add(new int[] {nx, ny});
+                }
+            }
+        }
+        return hubs >= 1 && data >= 2;
+    }
+}
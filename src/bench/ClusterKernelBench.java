@@ -0,0 +1,104 @@
+package src.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import src.cpu.ClusterDistanceKernel;
+import src.cpu.DCClusterDistance;
+
+/**
+ * Cluster distance for every cell of a board: DCClusterDistance one query at a time,
+ * ClusterDistanceKernel one query at a time, and the kernel batched, on the scalar loop and
+ * (when available) on the Vector API. Also reports the largest difference from the list.
+ *
+ * Run: java src.bench.ClusterKernelBench [rounds]
+ * With the Vector API: javac -d . --add-modules jdk.incubator.vector src/cpu/vector/*.java
+ *                      java --add-modules jdk.incubator.vector src.bench.ClusterKernelBench
+ */
+public class ClusterKernelBench {
+
+    static final int K = 3;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int[][] sizes = {{10, 8}, {32, 32}, {64, 64}};
+
+        boolean vector = ClusterDistanceKernel.isVectorApiAvailable();
+        System.out.println("Vector API: " + (vector ? "yes" : "no (scalar loop only)"));
+        System.out.printf("%-8s %6s %10s %10s %10s %10s %8s %10s%n",
+                "board", "data", "listUs", "singleUs", "batchUs", "vectorUs", "speedup", "maxDiff");
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            Random random = new Random(7);
+
+            List<DCClusterDistance.Point> points = new ArrayList<>();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (random.nextInt(5) == 0) points.add(new DCClusterDistance.Point(x, y));
+                }
+            }
+
+            int cells = width * height;
+            int[] qx = new int[cells];
+            int[] qy = new int[cells];
+            for (int c = 0; c < cells; c++) {
+                qx[c] = c % width;
+                qy[c] = c / width;
+            }
+
+            ClusterDistanceKernel scalar = new ClusterDistanceKernel(false);
+            scalar.setData(points);
+            ClusterDistanceKernel vectorKernel = new ClusterDistanceKernel(true);
+            vectorKernel.setData(points);
+            double[][] results = new double[4][cells];
+            int r = Math.max(1, rounds * 80 / cells);
+
+            // Warm up every path, then time each one
+            long[] nanos = new long[4];
+            for (int pass = 0; pass < 2; pass++) {
+                for (int path = 0; path < 4; path++) {
+                    if (path == 3 && !vector) continue;
+                    long start = System.nanoTime();
+                    for (int i = 0; i < r; i++) {
+                        switch (path) {
+                            case 0 -> listAll(points, qx, qy, results[0]);
+                            case 1 -> singleAll(scalar, qx, qy, results[1]);
+                            case 2 -> scalar.averageDistanceToKClosest(qx, qy, cells, K, results[2]);
+                            default -> vectorKernel.averageDistanceToKClosest(qx, qy, cells, K, results[3]);
+                        }
+                    }
+                    nanos[path] = System.nanoTime() - start;
+                }
+            }
+
+            double maxDiff = 0;
+            for (int path = 1; path < 4; path++) {
+                if (path == 3 && !vector) continue;
+                for (int c = 0; c < cells; c++) {
+                    maxDiff = Math.max(maxDiff, Math.abs(results[0][c] - results[path][c]));
+                }
+            }
+            long fastest = vector ? Math.min(nanos[2], nanos[3]) : nanos[2];
+
+            System.out.printf("%-8s %6d %10.1f %10.1f %10.1f %10s %7.1fx %10.2e%n",
+                    width + "x" + height, points.size(),
+                    nanos[0] / 1e3 / r, nanos[1] / 1e3 / r, nanos[2] / 1e3 / r,
+                    vector ? String.format("%.1f", nanos[3] / 1e3 / r) : "-",
+                    (double) nanos[0] / fastest, maxDiff);
+        }
+    }
+
+    static void singleAll(ClusterDistanceKernel kernel, int[] qx, int[] qy, double[] out) {
+        for (int c = 0; c < out.length; c++) {
+            out[c] = kernel.averageDistanceToKClosest(qx[c], qy[c], K);
+        }
+    }
+
+    static void listAll(List<DCClusterDistance.Point> points, int[] qx, int[] qy, double[] out) {
+        for (int c = 0; c < out.length; c++) {
+            out[c] = DCClusterDistance.averageDistanceToKClosest(points, qx[c], qy[c], K);
+        }
+    }
+}
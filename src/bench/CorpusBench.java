@@ -0,0 +1,88 @@
+package src.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import src.board.Board;
+import src.movement.BitboardState;
+import src.sim.BoardCorpus;
+import src.sim.BoardCorpusWriter;
+
+/**
+ * Layouts per second: drawn by Board.generateNewLayout versus read back from a
+ * memory-mapped BoardCorpus at random indices. "layout" decodes into a byte array,
+ * "board" builds a Board with its Tiles, "bitboard" decodes straight into a
+ * BitboardState (boards of up to 128 cells).
+ *
+ * Run: java src.bench.CorpusBench [layouts per corpus] [seconds per row]
+ */
+public class CorpusBench {
+
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        int layouts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        int[][] sizes = {{10, 8}, {64, 64}};
+
+        System.out.printf("%-8s %10s %12s %12s %12s %12s %14s%n", "board", "file KB",
+                "generate/s", "layout/s", "board/s", "bitboard/s", "write/s");
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int count = width * height <= 128 ? layouts : layouts / 50;
+            Path path = Files.createTempFile("corpus", ".bin");
+            try {
+                Board board = Board.fromSeed(width, height, 1);
+                long start = System.nanoTime();
+                try (BoardCorpusWriter writer = new BoardCorpusWriter(path, width, height)) {
+                    for (int i = 0; i < count; i++) {
+                        board.generateNewLayout();
+                        writer.add(board);
+                    }
+                }
+                double writeRate = count / ((System.nanoTime() - start) / 1e9);
+
+                BoardCorpus corpus = BoardCorpus.open(path);
+                byte[] cells = new byte[width * height];
+                SplittableRandom random = new SplittableRandom(1);
+
+                double generate = rate(seconds, board::generateNewLayout);
+                double layout = rate(seconds, () -> {
+                    corpus.readLayout(random.nextLong(corpus.size()), cells);
+                    sink += cells[0];
+                });
+                double boards = rate(seconds, () ->
+                        sink += corpus.board(random.nextLong(corpus.size())).getWidth());
+                double bitboards = width * height > BitboardState.MAX_CELLS ? 0 : rate(seconds, () ->
+                        sink += corpus.bitboard(random.nextLong(corpus.size())).dataLo);
+
+                System.out.printf("%-8s %10d %12.0f %12.0f %12.0f %12s %14.0f%n", width + "x" + height,
+                        Files.size(path) / 1024, generate, layout, boards,
+                        bitboards == 0 ? "-" : String.format("%.0f", bitboards), writeRate);
+            } finally {
+                Files.delete(path);
+            }
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    // Calls per second, after a warm-up of the same length
+    private static double rate(double seconds, Runnable call) {
+        for (int pass = 0; pass < 2; pass++) {
+            long end = System.nanoTime() + (long) (seconds * 1e9);
+            long start = System.nanoTime();
+            long calls = 0;
+            do {
+                call.run();
+                calls++;
+            } while (System.nanoTime() < end);
+            if (pass == 1) {
+                return calls / ((System.nanoTime() - start) / 1e9);
+            }
+        }
+        return 0;
+    }
+}
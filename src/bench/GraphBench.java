@@ -0,0 +1,113 @@
+package src.bench;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import src.board.Board;
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.graph.CompactGraph;
+import src.graph.DistanceField;
+import src.movement.Direction;
+
+/**
+ * BoardGraph on boards past the slide table's 128 cells, where moves walk the graph
+ * itself. Per size: heap bytes per cell of a BoardGraph, with the DistanceField it
+ * owns counted apart; slide ends per second from random cells read off the
+ * CompactGraph; moves per second (makeMove along random walks, unmade every 32 moves or
+ * on a crash, so DistanceField updates are included); snapshots and reinitializations
+ * per second.
+ *
+ * Run: java src.bench.GraphBench [seconds per row]
+ */
+public class GraphBench {
+
+    private static final int GRAPHS = 64; // kept alive at once for the heap measurement
+    private static long sink;
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        int[][] sizes = {{16, 16}, {64, 64}};
+
+        System.out.printf("%-8s %10s %10s %12s %12s %12s %12s%n", "board", "graph B/c",
+                "field B/c", "slide/s", "move/s", "snapshot/s", "reinit/s");
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int cells = width * height;
+            Board board = Board.fromSeed(width, height, 1);
+            BoardGraph graph = new BoardGraph(board);
+
+            long[] dataBits = new long[(cells + 63) / 64];
+            for (int cell = 0; cell < cells; cell++) {
+                if (board.getTile(cell % width, cell / width).getType() == TileType.DATA) {
+                    dataBits[cell >>> 6] |= 1L << cell;
+                }
+            }
+            double field = bytesPerCell(cells, () ->
+                    new DistanceField(width, height, dataBits, BoardGraph.CLUSTER_K, 8));
+            double whole = bytesPerCell(cells, () -> new BoardGraph(board));
+
+            SplittableRandom random = new SplittableRandom(1);
+            CompactGraph compact = graph.getCompactGraph();
+            double slides = rate(seconds, () ->
+                    sink += compact.slideEnd(random.nextInt(cells), random.nextInt(8)));
+            double moves = rate(seconds, () -> {
+                int got = graph.makeMove(Direction.ALL.get(random.nextInt(8)));
+                if (got >= 0 && (graph.getUndoDepth() == 32
+                        || graph.getPlayerNode().getType() == TileType.VIRUS)) {
+                    while (graph.getUndoDepth() > 0) graph.unmakeMove();
+                }
+                sink += got;
+            });
+            while (graph.getUndoDepth() > 0) graph.unmakeMove();
+            double snapshots = rate(seconds, () -> sink += graph.snapshot().getTotalData());
+            double reinits = rate(seconds, () -> {
+                graph.reinitialize(board);
+                sink += graph.getTotalData();
+            });
+
+            System.out.printf("%-8s %10.1f %10.1f %12.0f %12.0f %12.0f %12.0f%n", width + "x" + height,
+                    whole - field, field, slides, moves, snapshots, reinits);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    // Heap growth per cell while GRAPHS results of build are alive
+    private static double bytesPerCell(int cells, Supplier<Object> build) {
+        Object warm = build.get(); // loads the classes first
+        Object[] keep = new Object[GRAPHS];
+        long before = usedHeap();
+        for (int i = 0; i < GRAPHS; i++) {
+            keep[i] = build.get();
+        }
+        long after = usedHeap();
+        sink += keep.length + (warm == null ? 1 : 0);
+        return (after - before) / (double) GRAPHS / cells;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Calls per second, after a warm-up of the same length
+    private static double rate(double seconds, Runnable call) {
+        for (int pass = 0; pass < 2; pass++) {
+            long end = System.nanoTime() + (long) (seconds * 1e9);
+            long start = System.nanoTime();
+            long calls = 0;
+            do {
+                call.run();
+                calls++;
+            } while (System.nanoTime() < end);
+            if (pass == 1) {
+                return calls / ((System.nanoTime() - start) / 1e9);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,88 @@
+package src.bench;
+
+import src.board.Board;
+import src.cpu.DPDepthSolver;
+import src.graph.BoardGraph;
+import src.graph.GraphNode;
+
+/**
+ * Node-count and timing comparison of the minimax lookahead on fixed boards:
+ * full-width search versus alpha-beta with move ordering.
+ *
+ * Run: java src.bench.SearchBench [maxDepth]
+ */
+public class SearchBench {
+
+    static final String[][] BOARDS = {
+        {
+            "@ . . # . D . . V .",
+            ". D . . . . # . . .",
+            ". . V . D . . . D .",
+            "# . . . . # . . . .",
+            ". . D . . . . V . D",
+            ". . . # . D . . . .",
+            ". V . . . . . # . .",
+            "D . . . D . . . . H",
+        },
+        {
+            "@ . D . . . # . . D",
+            ". . . V . . . . . .",
+            "D . # . . D . . # .",
+            ". . . . . . V . . .",
+            ". D . . # . . . D .",
+            "# . . . . . D . . .",
+            ". . V . D . . . . .",
+            ". D . . . . # . . H",
+        },
+        {
+            "@ . . . D . . . . .",
+            ". # . . . . V . D .",
+            ". . D . # . . . . .",
+            ". . . . . D . # . .",
+            "V . . D . . . . . D",
+            ". . # . . . . D . .",
+            ". D . . V . # . . .",
+            ". . . . . . . D . H",
+        },
+    };
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        // Warm up the JIT on both variants
+        for (int i = 0; i < 3; i++) {
+            for (String[] rows : BOARDS) {
+                run(rows, 6, true);
+                run(rows, 6, false);
+            }
+        }
+
+        System.out.printf("%-6s %-6s %14s %10s %14s %10s %8s%n",
+                "board", "depth", "fullNodes", "fullMs", "abNodes", "abMs", "ratio");
+        for (int b = 0; b < BOARDS.length; b++) {
+            for (int depth = 4; depth <= maxDepth; depth++) {
+                long[] full = run(BOARDS[b], depth, false);
+                long[] ab = run(BOARDS[b], depth, true);
+                System.out.printf("%-6d %-6d %14d %10.1f %14d %10.1f %7.1fx%n",
+                        b, depth, full[0], full[1] / 1e6, ab[0], ab[1] / 1e6,
+                        (double) full[0] / ab[0]);
+                if (full[2] != ab[2]) {
+                    System.out.println("  value mismatch: " + full[2] + " vs " + ab[2]);
+                }
+            }
+        }
+    }
+
+    // Returns {nodes, nanos, value} for one search from the start cell with an empty table
+    static long[] run(String[] rows, int depth, boolean pruning) {
+        BoardGraph graph = new BoardGraph(Board.fromRows(rows));
+        GraphNode start = graph.getPlayerNode();
+        DPDepthSolver solver = new DPDepthSolver();
+        solver.setPruning(pruning);
+
+        long t0 = System.nanoTime();
+        double value = solver.dpMinimax(graph, start, depth, true);
+        long elapsed = System.nanoTime() - t0;
+        return new long[] {solver.getNodeCount(), elapsed, (long) value};
+    }
+}
@@ -0,0 +1,95 @@
+package src.bench;
+
+import java.util.SplittableRandom;
+
+import src.cpu.WorldStrategy;
+import src.movement.Direction;
+import src.world.ChunkedWorld;
+
+/**
+ * ChunkedWorld at sizes no Board can hold. Per size: time to start a new world, slides
+ * per second from random cells of the area around START (drawing chunks as they cross
+ * into them), milliseconds per WorldStrategy move at the positions of random walks from
+ * START that never step onto a VIRUS, and the chunks drawn by the last walk.
+ *
+ * Run: java src.bench.WorldBench [seconds per row]
+ */
+public class WorldBench {
+
+    private static final int AREA = 8 * ChunkedWorld.CHUNK; // slide origins are drawn from here
+    private static long sink;
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        int[] sizes = {1_000, 10_000, 100_000};
+
+        System.out.printf("%-14s %10s %12s %12s %8s %10s%n", "world", "reset ms",
+                "slide/s", "cpu ms/move", "chunks", "KB drawn");
+        for (int size : sizes) {
+            long start = System.nanoTime();
+            ChunkedWorld world = new ChunkedWorld(size, size, 1);
+            double resetMs = (System.nanoTime() - start) / 1e6;
+
+            SplittableRandom random = new SplittableRandom(1);
+            ChunkedWorld.Slide slide = new ChunkedWorld.Slide();
+            int area = Math.min(AREA, size);
+            double slides = rate(seconds, () -> {
+                int x = random.nextInt(area);
+                int y = random.nextInt(area);
+                if (world.slide(x, y, Direction.ALL.get(random.nextInt(8)), null, 0, slide)) {
+                    sink += slide.endX;
+                }
+            });
+
+            // The CPU is timed along random walks, so it searches all over the drawn area
+            WorldStrategy cpu = new WorldStrategy(1);
+            cpu.setVerbose(false);
+            long seed = 2;
+            world.reset(seed);
+            long searches = 0;
+            long end = System.nanoTime() + (long) (seconds * 1e9);
+            long searchStart = System.nanoTime();
+            do {
+                sink += cpu.getBestDirection(world, 50) == null ? 0 : 1;
+                searches++;
+                // A random slide that does not crash; a new world when there is none, or every
+                // 100 steps, since walks tend to settle into a pocket of a few cells
+                Direction step = null;
+                int first = random.nextInt(8);
+                for (int i = 0; i < 8 && step == null; i++) {
+                    Direction d = Direction.ALL.get((first + i) & 7);
+                    if (world.slide(world.getPlayerX(), world.getPlayerY(), d, null, 0, slide) && !slide.crash) {
+                        step = d;
+                    }
+                }
+                if (step == null || searches % 100 == 0) {
+                    world.reset(++seed);
+                } else {
+                    world.makeMove(step);
+                }
+            } while (System.nanoTime() < end);
+            double cpuMs = (System.nanoTime() - searchStart) / 1e6 / searches;
+
+            System.out.printf("%-14s %10.2f %12.0f %12.3f %8d %10d%n", size + "x" + size, resetMs,
+                    slides, cpuMs, world.getChunkCount(), world.getChunkBytes() / 1024);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    // Calls per second, after a warm-up of the same length
+    private static double rate(double seconds, Runnable call) {
+        for (int pass = 0; pass < 2; pass++) {
+            long end = System.nanoTime() + (long) (seconds * 1e9);
+            long start = System.nanoTime();
+            long calls = 0;
+            do {
+                call.run();
+                calls++;
+            } while (System.nanoTime() < end);
+            if (pass == 1) {
+                return calls / ((System.nanoTime() - start) / 1e9);
+            }
+        }
+        return 0;
+    }
+}
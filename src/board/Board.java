@@ -1,71 +1,168 @@
 package src.board;
 
-import java.util.LinkedList;
-import java.util.Queue;
-import src.graph.BoardGraph;
-import src.graph.GraphNode;
-import src.movement.Direction;
-
 public class Board {
     private final int width;
     private final int height;
     private Tile[][] grid;
+    private final BoardRandomizer randomizer;
+
+    // A layout must let slides reach the HUB and at least this many DATA tiles (and half of them)
+    private static final int MIN_REACHABLE_DATA = 2;
+    private static final TileType[] TYPES = TileType.values();
+
+    // Candidate layouts are drawn and checked here; only the accepted one becomes Tiles.
+    // Afterwards it holds the current layout, which getReachability() analyses on demand.
+    private byte[] layout;
+    private SlideReachability slides;
+    private SlideReachability.Result reachability; // of the current layout, null until asked
 
     public Board(int width, int height) {
+        this(width, height, new BoardRandomizer());
+    }
+
+    /** Layouts drawn from {@code randomizer}, so the same seed gives the same sequence of boards. */
+    public Board(int width, int height, BoardRandomizer randomizer) {
         this.width = width;
         this.height = height;
+        this.randomizer = randomizer;
         this.grid = new Tile[height][width];
         generateNewLayout();
     }
 
-    public void generateNewLayout() {
-        boolean reachable = false;
-        while (!reachable) {
-            BoardRandomizer.randomize(this.grid, this.width, this.height);
-            reachable = hasValidPath();
-        }
+    private Board(Tile[][] grid) {
+        this.height = grid.length;
+        this.width = grid[0].length;
+        this.grid = grid;
+        this.randomizer = new BoardRandomizer();
+    }
+
+    /** The standard 10x8 board whose first layout is given by {@code seed}, e.g. from a bug report. */
+    public static Board fromSeed(long seed) {
+        return fromSeed(10, 8, seed);
+    }
+
+    public static Board fromSeed(int width, int height, long seed) {
+        return new Board(width, height, new BoardRandomizer(seed));
+    }
+
+    /** Board with the fixed layout {@code cells}, see {@link #loadLayout(byte[])}. */
+    public static Board fromLayout(int width, int height, byte[] cells) {
+        Board board = new Board(new Tile[height][width]);
+        board.loadLayout(cells);
+        return board;
     }
 
     /**
-     * Checks if there is at least one possible sliding path that can reach the HUB
-     * and preferably some DATA tiles. Uses simplified BFS ignoring inertia for speed.
-     * Ensures the board is playable.
+     * Builds a fixed layout from text rows, using the notation of TEST_CASES.md:
+     * '@' start, 'H' hub, 'D' data, 'V' virus, '#' firewall, '.' blank. Spaces are ignored.
      */
-    private boolean hasValidPath() {
-        BoardGraph tempGraph = new BoardGraph(this); // Temporary graph to use neighbors
-        GraphNode start = tempGraph.getPlayerNode();
+    public static Board fromRows(String... rows) {
+        Tile[][] grid = new Tile[rows.length][];
+        for (int y = 0; y < rows.length; y++) {
+            String row = rows[y].replace(" ", "");
+            grid[y] = new Tile[row.length()];
+            for (int x = 0; x < row.length(); x++) {
+                TileType type = switch (row.charAt(x)) {
+                    case '@' -> TileType.START;
+                    case 'H' -> TileType.HUB;
+                    case 'D' -> TileType.DATA;
+                    case 'V' -> TileType.VIRUS;
+                    case '#' -> TileType.FIREWALL;
+                    case '.' -> TileType.BLANK;
+                    default -> throw new IllegalArgumentException("Unknown tile '" + row.charAt(x) + "'");
+                };
+                grid[y][x] = new Tile(type);
+            }
+            if (grid[y].length != grid[0].length) {
+                throw new IllegalArgumentException("Row " + y + " has a different width");
+            }
+        }
+        Board board = new Board(grid);
+        board.ensureScratch();
+        board.copyLayout(board.layout);
+        return board;
+    }
 
-        Queue<GraphNode> queue = new LinkedList<>();
-        boolean[][] visited = new boolean[height][width];
-        queue.add(start);
-        visited[start.getY()][start.getX()] = true;
+    public void generateNewLayout() {
+        generateNewLayout(randomizer);
+    }
 
-        int reachableHubs = 0;
-        int reachableData = 0;
+    /** Layout determined by {@code seed} alone, the same as Board.fromSeed gives. */
+    public void generateNewLayout(long seed) {
+        generateNewLayout(new BoardRandomizer(seed));
+    }
 
-        while (!queue.isEmpty()) {
-            GraphNode current = queue.poll();
+    /**
+     * Draws layouts until one is playable: real slides from START reach the HUB and at
+     * least half of the DATA (two at minimum). Retries work on a byte array.
+     */
+    private void generateNewLayout(BoardRandomizer randomizer) {
+        ensureScratch();
+        SlideReachability.Result result;
+        do {
+            randomizer.randomize(layout, width, height);
+            result = slides.analyze(layout);
+        } while (!isPlayable(result));
+        reachability = result;
+        buildTiles();
+    }
 
-            if (current.getType() == TileType.HUB && current != start) {
-                reachableHubs++;
+    /**
+     * Replaces the layout with {@code cells}, TileType ordinals with cell = y * width + x,
+     * e.g. one read back from a corpus. The layout is taken as it is, without the
+     * playability check.
+     */
+    public void loadLayout(byte[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Layout has " + cells.length + " cells, board has " + width * height);
+        }
+        ensureScratch();
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0 || cells[i] >= TYPES.length) {
+                throw new IllegalArgumentException("Unknown tile " + cells[i] + " at cell " + i);
             }
-            if (current.getType() == TileType.DATA) {
-                reachableData++;
+        }
+        System.arraycopy(cells, 0, layout, 0, cells.length);
+        reachability = null;
+        buildTiles();
+    }
+
+    /** The tiles as they are now, as TileType ordinals with cell = y * width + x. */
+    public void copyLayout(byte[] out) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                out[y * width + x] = (byte) grid[y][x].getType().ordinal();
             }
+        }
+    }
 
-            for (Direction d : Direction.ALL) {
-                GraphNode neighbor = current.getNeighbor(d);
-                if (neighbor != null &&
-                    neighbor.getType() != TileType.FIREWALL &&
-                    !visited[neighbor.getY()][neighbor.getX()]) {
-                    visited[neighbor.getY()][neighbor.getX()] = true;
-                    queue.add(neighbor);
-                }
+    private void buildTiles() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid[y][x] = new Tile(TYPES[layout[y * width + x]]);
             }
         }
+    }
+
+    private static boolean isPlayable(SlideReachability.Result result) {
+        return result.hubReachable()
+                && result.reachableData() >= Math.max(MIN_REACHABLE_DATA, (result.totalData() + 1) / 2);
+    }
 
-        // Require: at least one HUB reachable (besides start) and some DATA
-        return reachableHubs >= 1 && reachableData >= 2;
+    /** What slides can reach on the current layout; worked out once per layout. */
+    public SlideReachability.Result getReachability() {
+        if (reachability == null) {
+            // Fixed layout from fromRows or loadLayout, not analysed until now
+            reachability = slides.analyze(layout);
+        }
+        return reachability;
+    }
+
+    private void ensureScratch() {
+        if (layout == null) {
+            layout = new byte[width * height];
+            slides = new SlideReachability(width, height);
+        }
     }
 
     public Tile getTile(int x, int y) {
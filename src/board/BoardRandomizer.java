@@ -1,14 +1,57 @@
 package src.board;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
+/**
+ * Random layouts, each generator with its own SplittableRandom: the same seed always
+ * gives the same sequence of boards, and threads generating in parallel share nothing.
+ * Give every thread its own generator, e.g. from {@link #split()}.
+ */
 public class BoardRandomizer {
-    private static final Random rand = new Random();
+    private static final TileType[] TYPES = TileType.values();
 
-    public static void randomize(Tile[][] grid, int width, int height) {
+    // Shares of the free tiles; blank takes whatever rounding leaves over
+    private static final double BLANK_SHARE = 0.65;
+    private static final double FIREWALL_SHARE = 0.15;
+    private static final double DATA_SHARE = 0.13;
+    private static final double VIRUS_SHARE = 0.07;
+
+    private final SplittableRandom rand;
+    private byte[] regionTiles = new byte[0]; // shuffle scratch, reused
+
+    /** Unseeded: a different sequence on every run. */
+    public BoardRandomizer() {
+        this(new SplittableRandom());
+    }
+
+    public BoardRandomizer(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private BoardRandomizer(SplittableRandom rand) {
+        this.rand = rand;
+    }
+
+    /** Independent generator for another thread, determined by this one's seed. */
+    public BoardRandomizer split() {
+        return new BoardRandomizer(rand.split());
+    }
+
+    public void randomize(Tile[][] grid, int width, int height) {
+        byte[] cells = new byte[width * height];
+        randomize(cells, width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid[y][x] = new Tile(TYPES[cells[y * width + x]]);
+            }
+        }
+    }
+
+    /**
+     * Same layout as the Tile[][] version, written as TileType ordinals into
+     * {@code cells} (cell = y * width + x). Allocates nothing once warmed up.
+     */
+    public void randomize(byte[] cells, int width, int height) {
         // Calculate total tiles and desired counts for each type
         int totalTiles = width * height;
         
@@ -16,10 +59,10 @@ public class BoardRandomizer {
         // We'll reserve 2 tiles for START and HUB, plus 4 for guaranteed paths
         int availableTiles = totalTiles - 6;
         
-        int desiredBlank = (int)(availableTiles * 0.65);
-        int desiredFirewall = (int)(availableTiles * 0.15);
-        int desiredData = (int)(availableTiles * 0.13);
-        int desiredVirus = (int)(availableTiles * 0.07);
+        int desiredBlank = (int)(availableTiles * BLANK_SHARE);
+        int desiredFirewall = (int)(availableTiles * FIREWALL_SHARE);
+        int desiredData = (int)(availableTiles * DATA_SHARE);
+        int desiredVirus = (int)(availableTiles * VIRUS_SHARE);
         
         // Adjust to ensure we use all available tiles
         int assigned = desiredBlank + desiredFirewall + desiredData + desiredVirus;
@@ -65,26 +108,31 @@ public class BoardRandomizer {
                 int regionData = dataPerRegion + (regionIndex == 0 ? dataRemainder : 0);
                 int regionVirus = virusPerRegion + (regionIndex == 0 ? virusRemainder : 0);
                 
-                // Create a list of tiles for this region
-                List<TileType> regionTiles = new ArrayList<>();
-                for (int i = 0; i < regionBlank; i++) regionTiles.add(TileType.BLANK);
-                for (int i = 0; i < regionFirewall; i++) regionTiles.add(TileType.FIREWALL);
-                for (int i = 0; i < regionData; i++) regionTiles.add(TileType.DATA);
-                for (int i = 0; i < regionVirus; i++) regionTiles.add(TileType.VIRUS);
+                // Create the tiles for this region
+                int n = regionBlank + regionFirewall + regionData + regionVirus;
+                if (regionTiles.length < n) {
+                    regionTiles = new byte[n];
+                }
+                byte[] tiles = regionTiles;
+                int t = 0;
+                for (int i = 0; i < regionBlank; i++) tiles[t++] = (byte) TileType.BLANK.ordinal();
+                for (int i = 0; i < regionFirewall; i++) tiles[t++] = (byte) TileType.FIREWALL.ordinal();
+                for (int i = 0; i < regionData; i++) tiles[t++] = (byte) TileType.DATA.ordinal();
+                for (int i = 0; i < regionVirus; i++) tiles[t++] = (byte) TileType.VIRUS.ordinal();
                 
                 // Shuffle the tiles for random placement within the region
-                Collections.shuffle(regionTiles, rand);
+                shuffle(tiles, n);
                 
                 // Place tiles in the region
                 int tileIndex = 0;
                 for (int y = startY; y < endY; y++) {
                     for (int x = startX; x < endX; x++) {
-                        if (tileIndex < regionTiles.size()) {
-                            grid[y][x] = new Tile(regionTiles.get(tileIndex));
+                        if (tileIndex < n) {
+                            cells[y * width + x] = tiles[tileIndex];
                             tileIndex++;
                         } else {
                             // Fallback to BLANK if we run out of tiles
-                            grid[y][x] = new Tile(TileType.BLANK);
+                            cells[y * width + x] = (byte) TileType.BLANK.ordinal();
                         }
                     }
                 }
@@ -92,15 +140,50 @@ public class BoardRandomizer {
         }
 
         // Force Start and Hub (same as before)
-        grid[0][0] = new Tile(TileType.START);
-        grid[height - 1][width - 1] = new Tile(TileType.HUB);
+        cells[0] = (byte) TileType.START.ordinal();
+        cells[(height - 1) * width + width - 1] = (byte) TileType.HUB.ordinal();
 
         // GUARANTEE PATH: Force at least one neighbor of START to be clear
-        grid[0][1] = new Tile(TileType.BLANK); 
-        grid[1][0] = new Tile(TileType.BLANK);
+        cells[1] = (byte) TileType.BLANK.ordinal();
+        cells[width] = (byte) TileType.BLANK.ordinal();
         
         // Force a clear area around the HUB goal
-        grid[height - 1][width - 2] = new Tile(TileType.BLANK);
-        grid[height - 2][width - 1] = new Tile(TileType.BLANK);
+        cells[(height - 1) * width + width - 2] = (byte) TileType.BLANK.ordinal();
+        cells[(height - 2) * width + width - 1] = (byte) TileType.BLANK.ordinal();
+    }
+
+    /**
+     * One region of a large world, e.g. a chunk: the usual mix of tiles over all
+     * {@code width * height} cells, shuffled, with no START or HUB. Regions drawn
+     * separately from their own seeds add up to a world of any size.
+     */
+    public void randomizeRegion(byte[] cells, int width, int height) {
+        int n = width * height;
+        int firewall = (int) (n * FIREWALL_SHARE);
+        int data = regionData(n);
+        int virus = (int) (n * VIRUS_SHARE);
+        int blank = n - firewall - data - virus;
+
+        int t = 0;
+        for (int i = 0; i < blank; i++) cells[t++] = (byte) TileType.BLANK.ordinal();
+        for (int i = 0; i < firewall; i++) cells[t++] = (byte) TileType.FIREWALL.ordinal();
+        for (int i = 0; i < data; i++) cells[t++] = (byte) TileType.DATA.ordinal();
+        for (int i = 0; i < virus; i++) cells[t++] = (byte) TileType.VIRUS.ordinal();
+        shuffle(cells, n);
+    }
+
+    /** DATA tiles randomizeRegion puts into a region of {@code cells} cells. */
+    public static int regionData(int cells) {
+        return (int) (cells * DATA_SHARE);
+    }
+
+    // Fisher-Yates over the first n tiles
+    private void shuffle(byte[] tiles, int n) {
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            byte t = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = t;
+        }
     }
-}
\ No newline at end of file
+}
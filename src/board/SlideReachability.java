@@ -0,0 +1,523 @@
+package src.board;
+
+import java.util.Arrays;
+
+import src.movement.BitboardState;
+import src.movement.Direction;
+
+/**
+ * Which cells and DATA tiles real slides can reach from START, for a layout given as
+ * TileType ordinals (cell = y * width + x). Moves follow BoardGraph.makeMove: a slide runs
+ * until a firewall or the edge is next, or it enters a HUB (START counts as one) or a
+ * VIRUS. Slides into a virus lose the game, so their DATA does not count and their end is
+ * not explored. Collecting DATA never changes where a slide stops, so one search over
+ * slide ends answers the question for the whole game.
+ *
+ * Boards of up to 128 cells (the game's own) search on two-long bitboards, level by
+ * level: every frontier cell slides in one direction at once through a Kogge-Stone fill.
+ * Larger boards use bitsets with each row in its own run of words: for one direction, the
+ * slides from the cells reached so far are followed in a single sweep over the rows
+ * (within each row for east and west), and rounds over all eight directions repeat until
+ * no new cell is reached. A sweep only starts slides in rows that gained a cell since the
+ * last sweep that way and skips rows no slide runs into, so later rounds, which reach few
+ * cells, cost little. Either way, which cells end up on a virus is worked out per
+ * direction before the search, and cost does not grow with the length of slides.
+ */
+public class SlideReachability {
+
+    private static final byte BLANK = (byte) TileType.BLANK.ordinal();
+    private static final byte FIREWALL = (byte) TileType.FIREWALL.ordinal();
+    private static final byte DATA = (byte) TileType.DATA.ordinal();
+    private static final byte VIRUS = (byte) TileType.VIRUS.ordinal();
+    private static final byte HUB = (byte) TileType.HUB.ordinal();
+    private static final byte START = (byte) TileType.START.ordinal();
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final boolean bitboard;
+
+    // Bitboard search, per direction: shift, cells a slide can enter, cells it goes on from
+    // (ran through, next cell enterable), cells whose slide crashes, and fill masks
+    private final int[] shift = new int[8];
+    private final long[] landLo = new long[8], landHi = new long[8];
+    private final long[] contLo = new long[8], contHi = new long[8];
+    private final long[] doomLo = new long[8], doomHi = new long[8];
+    private final long[] fillLo, fillHi; // d * fillSteps + k: open runs for doubling k
+    private final long boardLo, boardHi;
+    private final long firstColLo, firstColHi, lastColLo, lastColHi;
+    private final int fillSteps;
+
+    // Row search for larger boards
+    private final int rowWords; // row y is words y * rowWords ..
+
+    // Layout
+    private final long[] land;  // cells a slide can enter: on the board, not a firewall
+    private final long[] pass;  // cells a slide runs on through: land minus VIRUS, HUB, START
+    private final long[] virus;
+    private final long[] hub;
+    private final long[] data;
+
+    // Per direction, from d * words: the slide goes on from here; the slide from here crashes
+    private final long[] cont;
+    private final long[] doom;
+
+    // Search
+    private final long[] seen;  // cells the player can stand on
+    private final long[] got;   // DATA passed by safe slides
+    private final long[] ray;   // cells entered by one direction's slides, scratch
+    private final int[] rayRows; // rows a sweep along the slide entered, scratch
+
+    // changed[y] is bumped whenever row y gains a cell; slid[d * height + y] is what it was
+    // when slides in direction d last started from the row. While they differ, the row has
+    // cells that have not slid that way.
+    private final int[] changed;
+    private final int[] slid;
+    private int clock;
+
+    public SlideReachability(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bitboard = width * height <= BitboardState.MAX_CELLS;
+
+        int cells = width * height;
+        this.boardLo = cells >= 64 ? -1L : (1L << cells) - 1;
+        this.boardHi = cells <= 64 ? 0L : (cells == 128 ? -1L : (1L << (cells - 64)) - 1);
+        long fLo = 0, fHi = 0, lLo = 0, lHi = 0;
+        for (int y = 0; bitboard && y < height; y++) {
+            int first = y * width;
+            int last = first + width - 1;
+            if (first < 64) fLo |= 1L << first; else fHi |= 1L << (first - 64);
+            if (last < 64) lLo |= 1L << last; else lHi |= 1L << (last - 64);
+        }
+        this.firstColLo = fLo;
+        this.firstColHi = fHi;
+        this.lastColLo = lLo;
+        this.lastColHi = lHi;
+        for (Direction dir : DIRECTIONS) {
+            shift[dir.ordinal()] = dir.dy * width + dir.dx;
+        }
+        // Doublings so that one fill covers the longest run of cells in a line
+        int steps = 0;
+        while ((1 << steps) - 1 < Math.max(width, height) - 1) steps++;
+        this.fillSteps = steps;
+        this.fillLo = new long[bitboard ? 8 * steps : 0];
+        this.fillHi = new long[bitboard ? 8 * steps : 0];
+
+        this.rowWords = (width + 63) >>> 6;
+        int words = bitboard ? 0 : rowWords * height;
+        this.land = new long[words];
+        this.pass = new long[words];
+        this.virus = new long[words];
+        this.hub = new long[words];
+        this.data = new long[words];
+        this.cont = new long[8 * words];
+        this.doom = new long[8 * words];
+        this.seen = new long[words];
+        this.got = new long[words];
+        this.ray = new long[words];
+        this.rayRows = new int[bitboard ? 0 : height];
+        this.changed = new int[bitboard ? 0 : height];
+        this.slid = new int[bitboard ? 0 : 8 * height];
+    }
+
+    public Result analyze(byte[] layout) {
+        return bitboard ? analyzeBits(layout) : analyzeRows(layout);
+    }
+
+    private Result analyzeBits(byte[] layout) {
+        long fwLo = 0, fwHi = 0, stopLo = 0, stopHi = 0, virusLo = 0, virusHi = 0;
+        long hubLo = 0, hubHi = 0, dataLo = 0, dataHi = 0;
+        int start = -1;
+        int cells = width * height;
+        for (int c = 0; c < cells; c++) {
+            byte type = layout[c];
+            if (type == BLANK) continue;
+            long bit = 1L << c;
+            boolean hi = c >= 64;
+            if (type == FIREWALL) {
+                if (hi) fwHi |= bit; else fwLo |= bit;
+            } else if (type == DATA) {
+                if (hi) dataHi |= bit; else dataLo |= bit;
+            } else {
+                // VIRUS, HUB and START all stop a slide
+                if (hi) stopHi |= bit; else stopLo |= bit;
+                if (type == VIRUS) {
+                    if (hi) virusHi |= bit; else virusLo |= bit;
+                } else if (type == HUB) {
+                    if (hi) hubHi |= bit; else hubLo |= bit;
+                } else if (start < 0) {
+                    start = c;
+                }
+            }
+        }
+        int totalData = Long.bitCount(dataLo) + Long.bitCount(dataHi);
+        if (start < 0) {
+            return new Result(0, totalData, false, 0);
+        }
+
+        long passLo = boardLo & ~fwLo & ~stopLo;
+        long passHi = boardHi & ~fwHi & ~stopHi;
+        for (int d = 0; d < 8; d++) {
+            int s = shift[d];
+            int dx = DIRECTIONS[d].dx;
+            // Moving east never enters column 0, moving west never the last column
+            long wrapLo = dx > 0 ? firstColLo : dx < 0 ? lastColLo : 0;
+            long wrapHi = dx > 0 ? firstColHi : dx < 0 ? lastColHi : 0;
+            landLo[d] = boardLo & ~fwLo & ~wrapLo;
+            landHi[d] = boardHi & ~fwHi & ~wrapHi;
+            // Kogge-Stone masks for the search: cells slides pass through, then runs of 2, 4, ...
+            long openLo = passLo & ~wrapLo, openHi = passHi & ~wrapHi;
+            int run = s;
+            for (int k = 0; k < fillSteps; k++) {
+                fillLo[d * fillSteps + k] = openLo;
+                fillHi[d * fillSteps + k] = openHi;
+                long oLo = BitboardState.shiftLo(openLo, openHi, run);
+                long oHi = BitboardState.shiftHi(openLo, openHi, run);
+                openLo &= oLo;
+                openHi &= oHi;
+                run <<= 1;
+            }
+            contLo[d] = passLo & BitboardState.shiftLo(landLo[d], landHi[d], -s);
+            contHi[d] = passHi & BitboardState.shiftHi(landLo[d], landHi[d], -s);
+
+            // Crashing cells: a virus, or a cell the slide leaves for a crashing cell
+            long genLo = virusLo, genHi = virusHi;
+            long proLo = contLo[d], proHi = contHi[d];
+            int step = -s;
+            for (int k = 0; k < fillSteps; k++) {
+                long gLo = BitboardState.shiftLo(genLo, genHi, step);
+                long gHi = BitboardState.shiftHi(genLo, genHi, step);
+                genLo |= proLo & gLo;
+                genHi |= proHi & gHi;
+                long pLo = BitboardState.shiftLo(proLo, proHi, step);
+                long pHi = BitboardState.shiftHi(proLo, proHi, step);
+                proLo &= pLo;
+                proHi &= pHi;
+                step <<= 1;
+            }
+            doomLo[d] = genLo;
+            doomHi[d] = genHi;
+        }
+
+        long seenLo = start < 64 ? 1L << start : 0;
+        long seenHi = start < 64 ? 0 : 1L << (start - 64);
+        long frontLo = seenLo, frontHi = seenHi;
+        long gotLo = 0, gotHi = 0;
+        while ((frontLo | frontHi) != 0) {
+            long nextLo = 0, nextHi = 0;
+            for (int d = 0; d < 8; d++) {
+                int s = shift[d];
+                // Every frontier cell slides at once: spread through the cells slides pass
+                long genLo = frontLo, genHi = frontHi;
+                int step = s;
+                for (int k = 0, m = d * fillSteps; k < fillSteps; k++, m++) {
+                    long gLo = BitboardState.shiftLo(genLo, genHi, step);
+                    long gHi = BitboardState.shiftHi(genLo, genHi, step);
+                    genLo |= fillLo[m] & gLo;
+                    genHi |= fillHi[m] & gHi;
+                    step <<= 1;
+                }
+                // Cells entered by safe slides, and the ones among them where slides stop
+                long rayLo = BitboardState.shiftLo(genLo, genHi, s) & landLo[d] & ~doomLo[d];
+                long rayHi = BitboardState.shiftHi(genLo, genHi, s) & landHi[d] & ~doomHi[d];
+                gotLo |= rayLo & dataLo;
+                gotHi |= rayHi & dataHi;
+                nextLo |= rayLo & ~contLo[d];
+                nextHi |= rayHi & ~contHi[d];
+            }
+            frontLo = nextLo & ~seenLo;
+            frontHi = nextHi & ~seenHi;
+            seenLo |= frontLo;
+            seenHi |= frontHi;
+        }
+
+        return new Result(Long.bitCount(gotLo) + Long.bitCount(gotHi), totalData,
+                ((seenLo & hubLo) | (seenHi & hubHi)) != 0,
+                Long.bitCount(seenLo) + Long.bitCount(seenHi));
+    }
+
+    private Result analyzeRows(byte[] layout) {
+        int start = load(layout);
+        int totalData = count(data);
+        if (start < 0) {
+            return new Result(0, totalData, false, 0);
+        }
+        for (int d = 0; d < 8; d++) {
+            prepare(d);
+        }
+
+        Arrays.fill(seen, 0);
+        Arrays.fill(got, 0);
+        Arrays.fill(changed, 0);
+        Arrays.fill(slid, 0);
+        clock = 0;
+        seen[(start / width) * rowWords + ((start % width) >>> 6)] = 1L << (start % width);
+        changed[start / width] = ++clock;
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (int d = 0; d < 8; d++) {
+                grew |= slide(d);
+            }
+        }
+
+        boolean hubReachable = false;
+        for (int w = 0; w < seen.length; w++) {
+            hubReachable |= (seen[w] & hub[w]) != 0;
+        }
+        return new Result(count(got), totalData, hubReachable, count(seen));
+    }
+
+    // Splits the layout into row bitsets; returns the START cell, or -1 if there is none
+    private int load(byte[] layout) {
+        Arrays.fill(land, 0);
+        Arrays.fill(pass, 0);
+        Arrays.fill(virus, 0);
+        Arrays.fill(hub, 0);
+        Arrays.fill(data, 0);
+        int start = -1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                byte type = layout[y * width + x];
+                if (type == FIREWALL) continue;
+                int w = y * rowWords + (x >>> 6);
+                long bit = 1L << x;
+                land[w] |= bit;
+                if (type == VIRUS) {
+                    virus[w] |= bit;
+                } else if (type == HUB) {
+                    hub[w] |= bit;
+                } else if (type == START) {
+                    if (start < 0) start = y * width + x;
+                } else {
+                    pass[w] |= bit;
+                    if (type == DATA) data[w] |= bit;
+                }
+            }
+        }
+        return start;
+    }
+
+    // cont and doom for direction d
+    private void prepare(int d) {
+        int dx = DIRECTIONS[d].dx;
+        int dy = DIRECTIONS[d].dy;
+        int base = d * land.length;
+
+        // A slide goes on from a cell it runs through if the next cell can be entered
+        for (int y = 0; y < height; y++) {
+            int row = y * rowWords;
+            int next = y + dy;
+            for (int w = 0; w < rowWords; w++) {
+                long ahead = next < 0 || next >= height ? 0 : ahead(land, next * rowWords, w, dx);
+                cont[base + row + w] = pass[row + w] & ahead;
+            }
+        }
+
+        // Crashing: a virus, or a cell the slide goes on from into a crashing cell
+        if (dy == 0) {
+            for (int y = 0; y < height; y++) {
+                int row = base + y * rowWords;
+                int vRow = y * rowWords;
+                long carry = 0;
+                if (dx > 0) {
+                    for (int w = rowWords - 1; w >= 0; w--) {
+                        long open = cont[row + w];
+                        long filled = fillDown(virus[vRow + w] | (carry << 63 & open), open);
+                        doom[row + w] = filled;
+                        carry = filled & 1L;
+                    }
+                } else {
+                    for (int w = 0; w < rowWords; w++) {
+                        long open = cont[row + w];
+                        long filled = fillUp(virus[vRow + w] | (carry & open), open);
+                        doom[row + w] = filled;
+                        carry = filled >>> 63;
+                    }
+                }
+            }
+        } else {
+            // Against the slide, so the row ahead is done first
+            for (int i = 0; i < height; i++) {
+                int y = dy > 0 ? height - 1 - i : i;
+                int row = y * rowWords;
+                int next = y + dy;
+                for (int w = 0; w < rowWords; w++) {
+                    long ahead = next < 0 || next >= height ? 0 : ahead(doom, base + next * rowWords, w, dx);
+                    doom[base + row + w] = virus[row + w] | (cont[base + row + w] & ahead);
+                }
+            }
+        }
+    }
+
+    /**
+     * Slides in direction d from the cells reached so far; adds the DATA they pass and the
+     * cells where they stop. True if a new cell was reached.
+     */
+    private boolean slide(int d) {
+        int dx = DIRECTIONS[d].dx;
+        int dy = DIRECTIONS[d].dy;
+        int rows = d * height;
+        boolean grew = false;
+
+        if (dy == 0) {
+            // East and west stay in the row: rows without a new cell have nothing new to do
+            for (int y = 0; y < height; y++) {
+                if (slid[rows + y] == changed[y]) continue;
+                slid[rows + y] = changed[y];
+                int row = y * rowWords;
+                long carry = 0;
+                if (dx > 0) {
+                    for (int w = 0; w < rowWords; w++) {
+                        int i = row + w;
+                        long entered = (seen[i] << 1 | (w > 0 ? seen[i - 1] >>> 63 : 0)) & land[i];
+                        long onward = land[i] & (pass[i] << 1 | (w > 0 ? pass[i - 1] >>> 63 : 0));
+                        long filled = fillUp(entered | (carry & onward), onward);
+                        ray[i] = filled;
+                        carry = filled >>> 63;
+                    }
+                } else {
+                    for (int w = rowWords - 1; w >= 0; w--) {
+                        int i = row + w;
+                        long entered = (seen[i] >>> 1 | (w + 1 < rowWords ? seen[i + 1] << 63 : 0)) & land[i];
+                        long onward = land[i] & (pass[i] >>> 1 | (w + 1 < rowWords ? pass[i + 1] << 63 : 0));
+                        long filled = fillDown(entered | (carry << 63 & onward), onward);
+                        ray[i] = filled;
+                        carry = filled & 1L;
+                    }
+                }
+                grew |= apply(d, y);
+            }
+            return grew;
+        }
+
+        // Along the slide: a row is entered from the row behind, by the slides that start
+        // there and the ones running on. Slides start from a row only if it gained a cell;
+        // the cells of other rows went this way before. Rows are skipped while nothing
+        // leaves the row behind.
+        boolean live = false;
+        boolean fresh = false;  // the row behind starts slides
+        int behind = 0;
+        int entered = 0;
+        for (int i = 0; i < height; i++) {
+            int y = dy > 0 ? i : height - 1 - i;
+            int row = y * rowWords;
+            long runs = 0;  // slides that go on into the next row
+            if (live) {
+                for (int w = 0; w < rowWords; w++) {
+                    long in = moving(behind, w, dx, fresh ? -1L : 0) & land[row + w];
+                    ray[row + w] = in;
+                    runs |= in & pass[row + w];
+                }
+                rayRows[entered++] = y;
+            }
+            fresh = slid[rows + y] != changed[y];
+            slid[rows + y] = changed[y];
+            if (!live && fresh) {
+                Arrays.fill(ray, row, row + rowWords, 0);
+            }
+            live = runs != 0 || fresh;
+            behind = row;
+        }
+        // Once the sweep is done, so that it only follows the ray from row to row
+        for (int i = 0; i < entered; i++) {
+            grew |= apply(d, rayRows[i]);
+        }
+        return grew;
+    }
+
+    // Safe slides of direction d in row y: DATA they pass, and new cells where they stop
+    private boolean apply(int d, int y) {
+        int row = y * rowWords;
+        int base = d * land.length + row;
+        boolean grew = false;
+        for (int w = 0; w < rowWords; w++) {
+            int i = row + w;
+            long safe = ray[i] & ~doom[base + w];
+            got[i] |= safe & data[i];
+            long stops = safe & ~cont[base + w] & ~seen[i];
+            if (stops != 0) {
+                seen[i] |= stops;
+                grew = true;
+            }
+        }
+        if (grew) {
+            changed[y] = ++clock;
+        }
+        return grew;
+    }
+
+    // Word w of what leaves the row at p (slides starting there, from the cells of seen in
+    // start, and running ones), moved dx columns
+    private long moving(int p, int w, int dx, long start) {
+        long cur = (seen[p + w] & start) | (ray[p + w] & pass[p + w]);
+        if (dx == 0) {
+            return cur;
+        }
+        if (dx > 0) {
+            long lower = w > 0 ? (seen[p + w - 1] & start) | (ray[p + w - 1] & pass[p + w - 1]) : 0;
+            return cur << 1 | lower >>> 63;
+        }
+        long upper = w + 1 < rowWords ? (seen[p + w + 1] & start) | (ray[p + w + 1] & pass[p + w + 1]) : 0;
+        return cur >>> 1 | upper << 63;
+    }
+
+    // Word w of the row at p as seen from dx columns back: bit x holds the bit of x + dx
+    private long ahead(long[] bits, int p, int w, int dx) {
+        if (dx == 0) {
+            return bits[p + w];
+        }
+        if (dx > 0) {
+            long upper = w + 1 < rowWords ? bits[p + w + 1] : 0;
+            return bits[p + w] >>> 1 | upper << 63;
+        }
+        long lower = w > 0 ? bits[p + w - 1] : 0;
+        return bits[p + w] << 1 | lower >>> 63;
+    }
+
+    private static int count(long[] bits) {
+        int n = 0;
+        for (long b : bits) n += Long.bitCount(b);
+        return n;
+    }
+
+    // Kogge-Stone fill: bits of gen spread towards bit 63 through consecutive bits of open
+    private static long fillUp(long gen, long open) {
+        gen |= open & (gen << 1);
+        open &= open << 1;
+        gen |= open & (gen << 2);
+        open &= open << 2;
+        gen |= open & (gen << 4);
+        open &= open << 4;
+        gen |= open & (gen << 8);
+        open &= open << 8;
+        gen |= open & (gen << 16);
+        open &= open << 16;
+        gen |= open & (gen << 32);
+        return gen;
+    }
+
+    // Same towards bit 0
+    private static long fillDown(long gen, long open) {
+        gen |= open & (gen >>> 1);
+        open &= open >>> 1;
+        gen |= open & (gen >>> 2);
+        open &= open >>> 2;
+        gen |= open & (gen >>> 4);
+        open &= open >>> 4;
+        gen |= open & (gen >>> 8);
+        open &= open >>> 8;
+        gen |= open & (gen >>> 16);
+        open &= open >>> 16;
+        gen |= open & (gen >>> 32);
+        return gen;
+    }
+
+    /**
+     * reachableData: DATA tiles some safe slide passes over. reachableCells: cells the
+     * player can stand on, START included.
+     */
+    public record Result(int reachableData, int totalData, boolean hubReachable, int reachableCells) { }
+}
@@ -0,0 +1,248 @@
+package src.cpu;
+
+import java.util.List;
+
+/**
+ * Batched cluster distance: many query cells against one DATA set.
+ * The data is stored as a structure of arrays (all x, then all y). Queries are taken
+ * QUERY_BLOCK at a time, and one pass over the data serves the whole block: each point is
+ * loaded once and its squared distance to every query of the block goes straight into
+ * that query's partial top-k, behind a compare with the k-th smallest so far. Only the k
+ * kept get a square root. The result equals DCClusterDistance.averageDistanceToKClosest.
+ *
+ * When the JVM runs with --add-modules jdk.incubator.vector and src.cpu.vector has been
+ * compiled, the pass runs on the Vector API (VectorBlockScan); otherwise on the scalar
+ * loop below. Both give bit-identical results.
+ */
+public class ClusterDistanceKernel {
+
+    static final int QUERY_BLOCK = 4;
+
+    private static final String VECTOR_SCAN = "src.cpu.vector.VectorBlockScan";
+    private static final boolean VECTOR_API = newVectorScan() != null;
+
+    private final BlockScan vector;
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private double[] best = new double[0];  // QUERY_BLOCK rows of k: each query's smallest so far
+    private final int[] kept = new int[QUERY_BLOCK];
+    private final double[] blockX = new double[QUERY_BLOCK];
+    private final double[] blockY = new double[QUERY_BLOCK];
+    private int count;
+
+    public ClusterDistanceKernel() {
+        this(true);
+    }
+
+    /** {@code useVectorApi} false keeps to the scalar loop even when the Vector API is there. */
+    public ClusterDistanceKernel(boolean useVectorApi) {
+        this.vector = useVectorApi && VECTOR_API ? newVectorScan() : null;  // has its own scratch
+    }
+
+    /** True if kernels built with the default constructor use the Vector API. */
+    public static boolean isVectorApiAvailable() {
+        return VECTOR_API;
+    }
+
+    /** Replaces the data set. */
+    public void setData(int[] x, int[] y, int n) {
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            xs[i] = x[i];
+            ys[i] = y[i];
+        }
+        count = n;
+    }
+
+    public void setData(List<DCClusterDistance.Point> points) {
+        int n = points.size();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            DCClusterDistance.Point p = points.get(i);
+            xs[i] = p.x();
+            ys[i] = p.y();
+        }
+        count = n;
+    }
+
+    /** Data given as set bits of a cell mask, cell = y * width + x, cells 64-127 in maskHi. */
+    public void setData(long maskLo, long maskHi, int width) {
+        ensureCapacity(Long.bitCount(maskLo) + Long.bitCount(maskHi));
+        int n = 0;
+        for (int half = 0; half < 2; half++) {
+            for (long m = half == 0 ? maskLo : maskHi; m != 0; m &= m - 1) {
+                int cell = half * 64 + Long.numberOfTrailingZeros(m);
+                xs[n] = cell % width;
+                ys[n] = cell / width;
+                n++;
+            }
+        }
+        count = n;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Writes the average distance to the k closest data points for each of the first
+     * {@code queries} query points into out; 0 when there is no data.
+     */
+    public void averageDistanceToKClosest(int[] qx, int[] qy, int queries, int k, double[] out) {
+        if (k <= 0) k = 1;
+        int used = Math.min(k, count);
+        if (used == 0) {
+            for (int q = 0; q < queries; q++) {
+                out[q] = 0.0;
+            }
+            return;
+        }
+        ensureBest(used);
+
+        for (int q0 = 0; q0 < queries; q0 += QUERY_BLOCK) {
+            int block = Math.min(QUERY_BLOCK, queries - q0);
+            for (int b = 0; b < block; b++) {
+                blockX[b] = qx[q0 + b];
+                blockY[b] = qy[q0 + b];
+            }
+            scanBlock(block, used);
+            for (int b = 0; b < block; b++) {
+                out[q0 + b] = average(b, used);
+            }
+        }
+    }
+
+    /** Single query, same result as the batched call. */
+    public double averageDistanceToKClosest(int qx, int qy, int k) {
+        if (k <= 0) k = 1;
+        int used = Math.min(k, count);
+        if (used == 0) {
+            return 0.0;
+        }
+        ensureBest(used);
+        blockX[0] = qx;
+        blockY[0] = qy;
+        scanBlock(1, used);
+        return average(0, used);
+    }
+
+    /**
+     * Offers squared distance d to query b's partial top-k, which holds the kept[b] smallest
+     * so far, ascending, from top[b * k]. Returns the value a later d has to be below to get
+     * in: +infinity until k are kept. Public for the Vector API path in src.cpu.vector.
+     */
+    public static double offer(double[] top, int[] kept, int b, int k, double d) {
+        int base = b * k;
+        int n = kept[b];
+        int j = n < k ? n++ : k - 1;
+        kept[b] = n;
+        while (j > 0 && top[base + j - 1] > d) {
+            top[base + j] = top[base + j - 1];
+            j--;
+        }
+        top[base + j] = d;
+        return n < k ? Double.POSITIVE_INFINITY : top[base + k - 1];
+    }
+
+    // One pass over the data for the whole block; leaves each query's k smallest in best
+    private void scanBlock(int block, int used) {
+        for (int b = 0; b < block; b++) {
+            kept[b] = 0;
+        }
+        if (vector != null) {
+            vector.scan(xs, ys, count, blockX, blockY, block, used, best, kept);
+            return;
+        }
+
+        double[] x = xs;
+        double[] y = ys;
+        double[] top = best;
+        int[] k = kept;
+        int n = count;
+        if (block == QUERY_BLOCK) {
+            double x0 = blockX[0], x1 = blockX[1], x2 = blockX[2], x3 = blockX[3];
+            double y0 = blockY[0], y1 = blockY[1], y2 = blockY[2], y3 = blockY[3];
+            double t0 = Double.POSITIVE_INFINITY, t1 = t0, t2 = t0, t3 = t0;
+            for (int i = 0; i < n; i++) {
+                double px = x[i];
+                double py = y[i];
+                double dx = px - x0, dy = py - y0;
+                double d = dx * dx + dy * dy;
+                if (d < t0) t0 = offer(top, k, 0, used, d);
+                dx = px - x1;
+                dy = py - y1;
+                d = dx * dx + dy * dy;
+                if (d < t1) t1 = offer(top, k, 1, used, d);
+                dx = px - x2;
+                dy = py - y2;
+                d = dx * dx + dy * dy;
+                if (d < t2) t2 = offer(top, k, 2, used, d);
+                dx = px - x3;
+                dy = py - y3;
+                d = dx * dx + dy * dy;
+                if (d < t3) t3 = offer(top, k, 3, used, d);
+            }
+            return;
+        }
+
+        // The last, short block of a batch, and single queries
+        for (int b = 0; b < block; b++) {
+            double fx = blockX[b];
+            double fy = blockY[b];
+            double t = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                double dx = x[i] - fx;
+                double dy = y[i] - fy;
+                double d = dx * dx + dy * dy;
+                if (d < t) t = offer(top, k, b, used, d);
+            }
+        }
+    }
+
+    // sqrt is monotonic, so these are the k smallest distances, added in ascending order
+    private double average(int b, int used) {
+        int base = b * used;
+        double sum = 0.0;
+        for (int i = 0; i < used; i++) {
+            sum += Math.sqrt(best[base + i]);
+        }
+        return sum / used;
+    }
+
+    private void ensureBest(int used) {
+        if (best.length < QUERY_BLOCK * used) {
+            best = new double[QUERY_BLOCK * used];
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (xs.length < n) {
+            xs = new double[n];
+            ys = new double[n];
+        }
+    }
+
+    // jdk.incubator.vector is only in the boot layer when asked for with --add-modules;
+    // the class is missing too unless src.cpu.vector was compiled against it
+    private static BlockScan newVectorScan() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (BlockScan) Class.forName(VECTOR_SCAN).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * One pass over the n data points for a block of queries: every squared distance
+     * dx * dx + dy * dy (unfused, so every path gives the same bits) is offered to that
+     * query's top-k. kept is zeroed by the caller; top and kept are as in offer().
+     */
+    @FunctionalInterface
+    public interface BlockScan {
+        void scan(double[] xs, double[] ys, int n, double[] qx, double[] qy, int queries, int k,
+                  double[] top, int[] kept);
+    }
+}
@@ -0,0 +1,33 @@
+package src.cpu;
+
+import src.graph.BoardGraph;
+import src.movement.Direction;
+
+/**
+ * A CPU move-selection engine. CPUPlayer picks one at startup.
+ */
+public interface CpuStrategy {
+
+    /**
+     * Best move for the side to move, or null if it has no playable direction.
+     * hopsLeft is the number of moves left in the game (Game.maxHops minus hops played).
+     */
+    Direction getBestDirection(BoardGraph graph, int hopsLeft);
+
+    /** Asks a search running on another thread to finish early; its move should be dropped. */
+    default void requestStop() {}
+
+    default void clearStopRequest() {}
+
+    /**
+     * A new layout was generated: drop tables and trees built for the old one. Keys do
+     * not include the terrain, so entries from another layout would be wrong, not just stale.
+     */
+    default void clear() {}
+
+    /** Restarts the strategy's random choices, so a game can be replayed exactly. */
+    default void setSeed(long seed) {}
+
+    /** Per-move logging to stdout; headless runs turn it off. */
+    default void setVerbose(boolean verbose) {}
+}
@@ -2,19 +2,49 @@ package src.cpu;
 
 import src.graph.BoardGraph;
 import src.graph.GraphNode;
-import src.board.TileType;
-import src.movement.Direction;
-
-import java.util.HashMap;
-import java.util.Map;
+import src.movement.BitboardState;
+import src.movement.SlideTable;
 
 public class DPDepthSolver {
 
-    private final Map<String, Double> dpTable = new HashMap<>();
-
     private static final int DATA_VALUE = 100;
     private static final int DEATH_PENALTY = 99999;
     private static final int MAX_DEPTH = 5;  // Increased – stronger prediction
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    public static final int DEFAULT_TABLE_MB = 8;
+
+    // Positions keyed by Zobrist hash of (player cell, remaining data, side to move)
+    private final TranspositionTable dpTable;
+
+    // Move-ordering buffers, one per remaining depth, so recursion never allocates
+    private int[][] plyMoves = new int[0][];
+    private final int[] orderKeys = new int[8];
+
+    private boolean pruning = true;
+    private long nodeCount;
+
+    // Anytime search: once the deadline passes the search unwinds without storing anything
+    private boolean hasDeadline;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;  // set from another thread to cancel a search
+
+    public DPDepthSolver() {
+        this(DEFAULT_TABLE_MB);
+    }
+
+    public DPDepthSolver(int tableSizeMb) {
+        this(new TranspositionTable(tableSizeMb));
+    }
+
+    /** Solver with its own search state over a table that may be shared with other threads. */
+    public DPDepthSolver(TranspositionTable table) {
+        this.dpTable = table;
+    }
+
+    public TranspositionTable getTable() {
+        return dpTable;
+    }
 
     /**
      * Minimax DP: CPU maximizes, assumes Human minimizes CPU's score.
@@ -25,87 +55,226 @@ public class DPDepthSolver {
                             GraphNode currentNode,
                             int depthLeft,
                             boolean isCpuTurn) {
+        if (graph.getSlideTable() == null) {
+            throw new IllegalArgumentException("DPDepthSolver needs the slide table, which covers boards of at most "
+                    + BitboardState.MAX_CELLS + " cells; this board has " + graph.getWidth() * graph.getHeight());
+        }
+        int cell = currentNode.getY() * graph.getWidth() + currentNode.getX();
+        return dpMinimax(graph.getSlideTable(), cell, graph.getDataLo(), graph.getDataHi(), depthLeft, isCpuTurn);
+    }
 
-        if (depthLeft == 0) {
+    /**
+     * Same search on the slide table and a data bitmask. Data collected along a line is
+     * removed from the mask, so a packet is never counted twice, and a virus ends the line.
+     * Human gains count against the CPU, a human crash counts for it.
+     */
+    public double dpMinimax(SlideTable slides,
+                            int player,
+                            long dataLo, long dataHi,
+                            int depthLeft,
+                            boolean isCpuTurn) {
+        aborted = false;
+        long hash = ZobristKeys.hash(player, dataLo, dataHi, isCpuTurn);
+        return search(slides, player, dataLo, dataHi, hash, depthLeft, isCpuTurn, -INFINITY, INFINITY);
+    }
+
+    private int search(SlideTable slides,
+                       int player,
+                       long dataLo, long dataHi,
+                       long hash,
+                       int depthLeft,
+                       boolean isCpuTurn,
+                       int alpha, int beta) {
+
+        nodeCount++;
+
+        if (depthLeft == 0 || (dataLo | dataHi) == 0) {
             return 0;
         }
 
-        String key = currentNode.getX() + "," + currentNode.getY() + "," + depthLeft + "," + (isCpuTurn ? "1" : "0");
+        if ((nodeCount & 1023) == 0
+                && (stopRequested || (hasDeadline && System.nanoTime() - deadline >= 0))) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
 
-        if (dpTable.containsKey(key)) {
-            return dpTable.get(key);
+        // Only an entry searched to exactly this depth has the same depth-limited value
+        int previousBest = TranspositionTable.NO_MOVE;
+        long entry = dpTable.probe(hash);
+        if (entry != 0) {
+            previousBest = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) == depthLeft) {
+                int value = TranspositionTable.value(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && value >= beta)
+                        || (bound == TranspositionTable.UPPER && value <= alpha)) {
+                    return value;
+                }
+            }
         }
 
-        double bestScore = isCpuTurn ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        int alphaOrig = alpha;
+        int betaOrig = beta;
+        int[] moves = movesFor(depthLeft);
+        int count = orderMoves(slides, player, dataLo, dataHi, previousBest, moves);
 
-        for (Direction dir : Direction.ALL) {
-            SimulationResult sim = simulateSlide(graph, currentNode, dir);
+        int bestScore = isCpuTurn ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = TranspositionTable.NO_MOVE;
 
-            if (sim.endNode == currentNode && sim.dataCollected == 0) {
-                continue;
-            }
+        for (int k = 0; k < count; k++) {
+            int i = moves[k];
+            int end = slides.end(player, i);
 
-            double immediateScore = sim.hitsVirus ? -DEATH_PENALTY : sim.dataCollected * DATA_VALUE;
+            int total;
+            if (slides.crashes(player, i)) {
+                total = isCpuTurn ? -DEATH_PENALTY : DEATH_PENALTY;
+            } else {
+                long gotLo = slides.rayLo(player, i) & dataLo;
+                long gotHi = slides.rayHi(player, i) & dataHi;
+                int immediateScore = (Long.bitCount(gotLo) + Long.bitCount(gotHi)) * DATA_VALUE;
+                int signed = isCpuTurn ? immediateScore : -immediateScore;
 
-            double futureScore = dpMinimax(graph, sim.endNode, depthLeft - 1, !isCpuTurn);
+                // Incremental Zobrist update: move the player, drop collected data, flip side
+                long childHash = hash
+                        ^ ZobristKeys.player(player) ^ ZobristKeys.player(end)
+                        ^ ZobristKeys.data(gotLo, gotHi)
+                        ^ ZobristKeys.SIDE;
 
-            double total = immediateScore + futureScore;
+                // The child sees the window shifted by what this move already scored
+                int futureScore = search(slides, end, dataLo & ~gotLo, dataHi & ~gotHi,
+                        childHash, depthLeft - 1, !isCpuTurn, alpha - signed, beta - signed);
+                if (aborted) {
+                    return 0;
+                }
 
-            if (isCpuTurn) {
-                bestScore = Math.max(bestScore, total);
-            } else {
-                bestScore = Math.min(bestScore, total);
+                total = signed + futureScore;
+            }
+
+            if (isCpuTurn ? total > bestScore : total < bestScore) {
+                bestScore = total;
+                bestMove = i;
+            }
+
+            if (pruning) {
+                if (isCpuTurn) {
+                    alpha = Math.max(alpha, bestScore);
+                } else {
+                    beta = Math.min(beta, bestScore);
+                }
+                if (alpha >= beta) {
+                    break;
+                }
             }
         }
 
-        if (bestScore == Double.NEGATIVE_INFINITY || bestScore == Double.POSITIVE_INFINITY) {
+        if (bestMove == TranspositionTable.NO_MOVE) {
             bestScore = 0;
         }
 
-        dpTable.put(key, bestScore);
+        int bound = bestScore <= alphaOrig ? TranspositionTable.UPPER
+                : bestScore >= betaOrig ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        dpTable.store(hash, depthLeft, bound, bestScore, bestMove);
         return bestScore;
     }
 
-    private SimulationResult simulateSlide(BoardGraph graph, GraphNode start, Direction dir) {
-        GraphNode next = start.getNeighbor(dir);
-        if (next == null || next.getType() == TileType.FIREWALL) {
-            return new SimulationResult(start, 0, false);
-        }
+    /**
+     * Writes the playable directions into moves, best first: most data collected,
+     * then hub endings, then the best move from an earlier search. Crashes go last.
+     */
+    private int orderMoves(SlideTable slides, int player, long dataLo, long dataHi,
+                           int previousBest, int[] moves) {
+        int[] keys = orderKeys;
+        int count = 0;
 
-        GraphNode current = start;
-        int dataCollected = 0;
-        boolean hitsVirus = false;
+        for (int i = 0; i < 8; i++) {
+            if (slides.end(player, i) < 0) {
+                continue;
+            }
 
-        while (true) {
-            current = next;
+            int key;
+            if (slides.crashes(player, i)) {
+                key = -1;
+            } else {
+                int gain = Long.bitCount(slides.rayLo(player, i) & dataLo)
+                        + Long.bitCount(slides.rayHi(player, i) & dataHi);
+                key = gain * 4
+                        + (slides.endsOnHub(player, i) ? 2 : 0)
+                        + (i == previousBest ? 1 : 0);
+            }
 
-            if (current.getType() == TileType.DATA) {
-                dataCollected++;
+            // Insertion sort – stable, at most 8 entries
+            int j = count++;
+            while (j > 0 && keys[j - 1] < key) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+                j--;
             }
+            keys[j] = key;
+            moves[j] = i;
+        }
+        return count;
+    }
 
-            if (current.getType() == TileType.VIRUS) {
-                hitsVirus = true;
+    private int[] movesFor(int depthLeft) {
+        if (depthLeft >= plyMoves.length) {
+            int[][] grown = new int[depthLeft + 1][];
+            System.arraycopy(plyMoves, 0, grown, 0, plyMoves.length);
+            for (int i = plyMoves.length; i < grown.length; i++) {
+                grown[i] = new int[8];
             }
+            plyMoves = grown;
+        }
+        return plyMoves[depthLeft];
+    }
 
-            if (current.getType() == TileType.HUB) break;
+    /** Searches started after this System.nanoTime() value are cut short; see isAborted(). */
+    public void setDeadline(long deadlineNanos) {
+        this.deadline = deadlineNanos;
+        this.hasDeadline = true;
+    }
 
-            next = current.getNeighbor(dir);
+    public void clearDeadline() {
+        this.hasDeadline = false;
+    }
 
-            if (next == null || next.getType() == TileType.FIREWALL) break;
-        }
+    /** Makes a search running on another thread abort at its next clock check. */
+    public void requestStop() {
+        stopRequested = true;
+    }
 
-        return new SimulationResult(current, dataCollected, hitsVirus);
+    public void clearStopRequest() {
+        stopRequested = false;
     }
 
-    private static class SimulationResult {
-        GraphNode endNode;
-        int dataCollected;
-        boolean hitsVirus;
+    /** True if the last dpMinimax call hit the deadline or was stopped; its result must be discarded. */
+    public boolean isAborted() {
+        return aborted;
+    }
 
-        SimulationResult(GraphNode endNode, int dataCollected, boolean hitsVirus) {
-            this.endNode = endNode;
-            this.dataCollected = dataCollected;
-            this.hitsVirus = hitsVirus;
-        }
+    /** Alpha-beta cutoffs; off gives the plain full-width minimax for comparison. */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+
+    /** Number of positions visited since the last reset. */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public void resetNodeCount() {
+        nodeCount = 0;
+    }
+
+    /** Ages the table at the start of a CPU turn so older entries can be replaced. */
+    public void newSearch() {
+        dpTable.newSearch();
+    }
+
+    public void clear() {
+        dpTable.clear();
     }
-}
\ No newline at end of file
+}
@@ -1,53 +1,202 @@
 package src.cpu;
 
-import src.graph.BoardGraph;
-import src.graph.GraphNode;
-import src.board.TileType;
-
-import java.util.*;
+import java.util.Arrays;
 
+/**
+ * Cluster distances keyed by end cell and remaining data, kept for the whole game.
+ * A distance only depends on the cell and on which DATA tiles are left, so entries stay
+ * valid across turns until the layout changes. The key is one packed long: the cell in
+ * the low 7 bits, above it the remaining data compressed to one bit per tile of the
+ * layout's starting data. Least recently used entries are evicted once the cache is full.
+ * Everything lives in primitive arrays, so lookups allocate nothing.
+ */
 public class DPMemoCache {
 
-    private final Map<String, Double> memo;
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final int CELL_BITS = 7;
+    private static final int MAX_DATA_BITS = 64 - CELL_BITS;
+    private static final int NONE = -1;
+
+    // Layout: bit index of every starting data cell
+    private final int[] bitIndex = new int[128];
+    private long universeLo, universeHi;
+    private boolean packable;
+
+    // Entries, linked from most (head) to least (tail) recently used
+    private final int capacity;
+    private final long[] keys;
+    private final double[] values;
+    private final int[] prev;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    // Open-addressing index: entry + 1, 0 marks an empty slot
+    private final int[] slots;
+
+    private long hits;
+    private long misses;
+    private long evictions;
 
     public DPMemoCache() {
-        this.memo = new HashMap<>();
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DPMemoCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.values = new double[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity) * 4];
     }
 
     /**
-     * Gets cached cluster distance if available, else computes and caches it.
+     * Starts a new layout whose data cells are the given mask. Positions later in the
+     * game hold a subset of it. Drops all entries; the counters keep running.
      */
-    public double getOrComputeDistance(
-            BoardGraph graph,
-            GraphNode from,
-            Set<GraphNode> exclude,
-            DistanceCalculator calculator) {
+    public void startLayout(long dataLo, long dataHi) {
+        universeLo = dataLo;
+        universeHi = dataHi;
+        packable = Long.bitCount(dataLo) + Long.bitCount(dataHi) <= MAX_DATA_BITS;
+        int bit = 0;
+        for (long m = dataLo; m != 0; m &= m - 1) {
+            bitIndex[Long.numberOfTrailingZeros(m)] = bit++;
+        }
+        for (long m = dataHi; m != 0; m &= m - 1) {
+            bitIndex[64 + Long.numberOfTrailingZeros(m)] = bit++;
+        }
+        clear();
+    }
 
-        String key = from.getX() + "," + from.getY() + "," + getDataHash(graph, exclude);
-        Double cached = memo.get(key);
+    /** True if this remaining-data mask belongs to the current layout. */
+    public boolean covers(long dataLo, long dataHi) {
+        return (dataLo & ~universeLo) == 0 && (dataHi & ~universeHi) == 0;
+    }
+
+    /**
+     * Gets cached cluster distance if available, else computes and caches it.
+     */
+    public double getOrComputeDistance(int cell, long remainingLo, long remainingHi,
+                                       DistanceCalculator calculator) {
+        if (!packable || !covers(remainingLo, remainingHi)) {
+            misses++;
+            return calculator.compute(cell, remainingLo, remainingHi);
+        }
 
-        if (cached != null) {
-            return cached;
+        long key = key(cell, remainingLo, remainingHi);
+        int slot = find(key);
+        int entry = slots[slot] - 1;
+        if (entry >= 0) {
+            hits++;
+            moveToHead(entry);
+            return values[entry];
         }
 
-        double distance = calculator.compute(graph, from, exclude);
-        memo.put(key, distance);
+        misses++;
+        double distance = calculator.compute(cell, remainingLo, remainingHi);
+
+        if (size == capacity) {
+            entry = tail;
+            unlink(entry);
+            removeSlot(find(keys[entry]));
+            evictions++;
+            slot = find(key); // removal may have shifted the probe run
+        } else {
+            entry = size++;
+        }
+        keys[entry] = key;
+        values[entry] = distance;
+        slots[slot] = entry + 1;
+        linkHead(entry);
         return distance;
     }
 
-    private String getDataHash(BoardGraph graph, Set<GraphNode> exclude) {
-        List<String> remaining = new ArrayList<>();
-        for (GraphNode node : graph.getAllNodes()) {
-            if (node.getType() == TileType.DATA && !exclude.contains(node)) {
-                remaining.add(node.getX() + ":" + node.getY());
+    private long key(int cell, long remainingLo, long remainingHi) {
+        long data = 0;
+        for (long m = remainingLo; m != 0; m &= m - 1) {
+            data |= 1L << bitIndex[Long.numberOfTrailingZeros(m)];
+        }
+        for (long m = remainingHi; m != 0; m &= m - 1) {
+            data |= 1L << bitIndex[64 + Long.numberOfTrailingZeros(m)];
+        }
+        return data << CELL_BITS | cell;
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & (slots.length - 1);
+    }
+
+    // Slot holding key, or the empty slot where it would go
+    private int find(long key) {
+        int mask = slots.length - 1;
+        int i = home(key);
+        while (slots[i] != 0 && keys[slots[i] - 1] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // Linear-probing delete: pull later entries of the run back so lookups never stop early
+    private void removeSlot(int hole) {
+        int mask = slots.length - 1;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (slots[j] == 0) {
+                break;
+            }
+            int h = home(keys[slots[j] - 1]);
+            boolean stays = hole <= j ? (hole < h && h <= j) : (hole < h || h <= j);
+            if (!stays) {
+                slots[hole] = slots[j];
+                hole = j;
             }
         }
-        Collections.sort(remaining);
-        return String.join(",", remaining);
+        slots[hole] = 0;
     }
 
+    private void moveToHead(int entry) {
+        if (entry != head) {
+            unlink(entry);
+            linkHead(entry);
+        }
+    }
+
+    private void linkHead(int entry) {
+        prev[entry] = NONE;
+        next[entry] = head;
+        if (head != NONE) prev[head] = entry;
+        head = entry;
+        if (tail == NONE) tail = entry;
+    }
+
+    private void unlink(int entry) {
+        int p = prev[entry];
+        int n = next[entry];
+        if (p != NONE) next[p] = n; else head = n;
+        if (n != NONE) prev[n] = p; else tail = p;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    public int size() { return size; }
+    public int capacity() { return capacity; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+
     @FunctionalInterface
     public interface DistanceCalculator {
-        double compute(BoardGraph graph, GraphNode from, Set<GraphNode> exclude);
+        double compute(int cell, long remainingLo, long remainingHi);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package src.cpu;
+
+import src.movement.SlideTable;
+
+import java.util.Arrays;
+
+/**
+ * Exact solver for the last few DATA tiles.
+ * Searches every line to the real end of the game (no data left, hop limit or virus)
+ * with alpha-beta, so the result is the perfect move and the exact margin, not an estimate.
+ * The game is the same for both sides, so a position's value for the side to move only
+ * depends on player cell, remaining data and hops left; solved positions are cached on
+ * that key for the rest of the game and repeats cost one lookup.
+ */
+public class EndgameSolver {
+
+    public static final int DEFAULT_THRESHOLD = 6;
+    public static final int CRASH_MARGIN = 1000;  // more than any data margin – a crash decides the game
+    private static final int MAX_THRESHOLD = 32;   // remaining data is packed into 32 bits of the key
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private static final int EXACT = 0;
+    private static final int LOWER = 1;
+    private static final int UPPER = 2;
+
+    private int threshold = DEFAULT_THRESHOLD;
+
+    // Data cells of the position the cache was started from; later positions hold a subset
+    private SlideTable table;
+    private final int[] bitIndex = new int[128];
+    private long universeLo, universeHi;
+
+    // Open addressing, key + 1 so 0 marks an empty slot; value packed as margin << 2 | bound
+    private long[] keys = new long[1 << 12];
+    private int[] values = new int[1 << 12];
+    private int size;
+
+    private final int[][] plyMoves = new int[64][8];
+    private final int[] orderKeys = new int[8];
+    private int bestMove = -1;
+    private long nodeCount;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    /** Remaining data at or below which applies(...) is true. */
+    public void setThreshold(int threshold) {
+        if (threshold < 0 || threshold > MAX_THRESHOLD) {
+            throw new IllegalArgumentException("threshold must be between 0 and " + MAX_THRESHOLD);
+        }
+        this.threshold = threshold;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public boolean applies(long dataLo, long dataHi) {
+        return Long.bitCount(dataLo) + Long.bitCount(dataHi) <= threshold;
+    }
+
+    /**
+     * Solves the position for the side to move and returns its exact margin: its data
+     * minus the opponent's data from here to the end, or about ±CRASH_MARGIN if someone
+     * is forced into a virus. The move that achieves it is in getBestMove().
+     */
+    public int solve(SlideTable slides, int player, long dataLo, long dataHi, int hopsLeft) {
+        if (hopsLeft >= plyMoves.length) {
+            throw new IllegalArgumentException("hopsLeft must be below " + plyMoves.length);
+        }
+        if (slides != table || (dataLo & ~universeLo) != 0 || (dataHi & ~universeHi) != 0) {
+            startUniverse(slides, dataLo, dataHi);
+        }
+
+        aborted = false;
+        bestMove = -1;
+        int margin = search(slides, player, dataLo, dataHi, hopsLeft, -INFINITY, INFINITY, true);
+        return aborted ? 0 : margin;
+    }
+
+    private int search(SlideTable slides, int player, long dataLo, long dataHi,
+                       int hopsLeft, int alpha, int beta, boolean root) {
+        nodeCount++;
+
+        if (hopsLeft == 0 || (dataLo | dataHi) == 0) {
+            return 0;
+        }
+        if ((nodeCount & 1023) == 0 && stopRequested) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        long key = key(player, dataLo, dataHi, hopsLeft);
+        int slot = find(key);
+        if (!root && keys[slot] != 0) {
+            int packed = values[slot];
+            int value = packed >> 2;
+            int bound = packed & 3;
+            if (bound == EXACT
+                    || (bound == LOWER && value >= beta)
+                    || (bound == UPPER && value <= alpha)) {
+                return value;
+            }
+        }
+
+        int alphaOrig = alpha;
+        int[] moves = plyMoves[hopsLeft];
+        int count = orderMoves(slides, player, dataLo, dataHi, moves);
+
+        int best = -INFINITY;
+        int move = -1;
+        for (int k = 0; k < count; k++) {
+            int d = moves[k];
+            int value;
+            if (slides.crashes(player, d)) {
+                value = -CRASH_MARGIN;
+            } else {
+                long gotLo = slides.rayLo(player, d) & dataLo;
+                long gotHi = slides.rayHi(player, d) & dataHi;
+                int gain = Long.bitCount(gotLo) + Long.bitCount(gotHi);
+                // Negamax: the opponent's margin counts against us, window shifted by the gain
+                value = gain - search(slides, slides.end(player, d), dataLo & ~gotLo, dataHi & ~gotHi,
+                        hopsLeft - 1, gain - beta, gain - alpha, false);
+                if (aborted) {
+                    return 0;
+                }
+            }
+
+            if (value > best) {
+                best = value;
+                move = d;
+            }
+            alpha = Math.max(alpha, best);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (move < 0) {
+            best = 0; // stuck – nothing more happens in this line
+        }
+        if (root) {
+            bestMove = move;
+        }
+
+        int bound = best <= alphaOrig ? UPPER : best >= beta ? LOWER : EXACT;
+        store(key, best, bound);
+        return best;
+    }
+
+    // Most data first, crashes last; insertion sort over at most 8 moves
+    private int orderMoves(SlideTable slides, int player, long dataLo, long dataHi, int[] moves) {
+        int[] keys = orderKeys;
+        int count = 0;
+        for (int d = 0; d < 8; d++) {
+            if (slides.end(player, d) < 0) {
+                continue;
+            }
+            int key = slides.crashes(player, d) ? -1
+                    : Long.bitCount(slides.rayLo(player, d) & dataLo)
+                    + Long.bitCount(slides.rayHi(player, d) & dataHi);
+            int j = count++;
+            while (j > 0 && keys[j - 1] < key) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+                j--;
+            }
+            keys[j] = key;
+            moves[j] = d;
+        }
+        return count;
+    }
+
+    private void startUniverse(SlideTable slides, long dataLo, long dataHi) {
+        table = slides;
+        universeLo = dataLo;
+        universeHi = dataHi;
+        int bit = 0;
+        for (long m = dataLo; m != 0; m &= m - 1) {
+            bitIndex[Long.numberOfTrailingZeros(m)] = bit++;
+        }
+        for (long m = dataHi; m != 0; m &= m - 1) {
+            bitIndex[64 + Long.numberOfTrailingZeros(m)] = bit++;
+        }
+        clear();
+    }
+
+    // Remaining data compressed to one bit per cell of the universe, then cell and hops
+    private long key(int player, long dataLo, long dataHi, int hopsLeft) {
+        long data = 0;
+        for (long m = dataLo; m != 0; m &= m - 1) {
+            data |= 1L << bitIndex[Long.numberOfTrailingZeros(m)];
+        }
+        for (long m = dataHi; m != 0; m &= m - 1) {
+            data |= 1L << bitIndex[64 + Long.numberOfTrailingZeros(m)];
+        }
+        return (data << 13 | (long) player << 6 | hopsLeft) + 1;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int i = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void store(long key, int value, int bound) {
+        int slot = find(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = value << 2 | bound;
+                grow();
+                return;
+            }
+        }
+        values[slot] = value << 2 | bound;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /** Direction ordinal of the perfect move from the last solve, or -1 if there was none. */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /** True if the last solve was stopped; its move and margin must be discarded. */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    public void clearStopRequest() {
+        stopRequested = false;
+    }
+
+    /** Number of solved positions in the cache. */
+    public int size() {
+        return size;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+}
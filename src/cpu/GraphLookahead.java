@@ -0,0 +1,90 @@
+package src.cpu;
+
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.graph.CompactGraph;
+import src.movement.Direction;
+
+/**
+ * Minimax lookahead played on the BoardGraph itself with makeMove/unmakeMove, for boards
+ * over the slide table's 128 cells where DPDepthSolver cannot run. Values are the ones
+ * DPDepthSolver gives: DATA_VALUE per tile, and -DEATH_PENALTY for the side that slides
+ * into a virus. It is negamax with alpha-beta but no transposition table, so it reaches
+ * less deep in the same time. Every move is taken back, so the graph is left as it was.
+ */
+class GraphLookahead {
+
+    private static final int DATA_VALUE = 100;
+    private static final int DEATH_PENALTY = 99999;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final byte VIRUS = (byte) TileType.VIRUS.ordinal();
+
+    private long nodeCount;
+    private boolean hasDeadline;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;  // set from another thread to cancel a search
+
+    /** Best margin for the side to move over the next {@code depth} hops; 0 once aborted. */
+    int search(BoardGraph graph, int depth) {
+        aborted = false;
+        return negamax(graph, graph.getCompactGraph(), depth, -INFINITY, INFINITY);
+    }
+
+    private int negamax(BoardGraph graph, CompactGraph compact, int depth, int alpha, int beta) {
+        nodeCount++;
+        if (depth == 0 || graph.getTotalData() == 0) {
+            return 0;
+        }
+        if ((nodeCount & 255) == 0
+                && (stopRequested || (hasDeadline && System.nanoTime() - deadline >= 0))) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        int best = -INFINITY;
+        for (Direction d : Direction.ALL) {
+            int collected = graph.makeMove(d);
+            if (collected < 0) {
+                continue;
+            }
+            int value = compact.type(compact.getPlayer()) == VIRUS
+                    ? -DEATH_PENALTY
+                    : collected * DATA_VALUE - negamax(graph, compact, depth - 1, -beta, -alpha);
+            graph.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            best = Math.max(best, value);
+            alpha = Math.max(alpha, best);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best == -INFINITY ? 0 : best;
+    }
+
+    /** True if the last search ran out of time or was stopped; its value is then meaningless. */
+    boolean isAborted() {
+        return aborted;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    void clearDeadline() {
+        this.hasDeadline = false;
+    }
+
+    void requestStop() {
+        stopRequested = true;
+    }
+
+    void clearStopRequest() {
+        stopRequested = false;
+    }
+}
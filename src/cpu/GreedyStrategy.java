@@ -2,169 +2,503 @@ package src.cpu;
 
 import src.board.TileType;
 import src.graph.BoardGraph;
+import src.graph.CompactGraph;
+import src.graph.DistanceField;
 import src.graph.GraphNode;
 import src.movement.Direction;
+import src.movement.SlideTable;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-public class GreedyStrategy {
+public class GreedyStrategy implements CpuStrategy {
 
     private static final int DATA_VALUE = 100;
     private static final int DEATH_PENALTY = 99999;
-    private static final int LOOKAHEAD_DEPTH = 5;
+    private static final int LOOKAHEAD_DEPTH = 8;  // Alpha-beta reaches this in the time full-width took for 5
     private static final double CLUSTER_PENALTY_WEIGHT = 15.0;  // Increased for aggression
     private static final double HUB_BONUS = 10.0;  // Small bonus for safe hub endings
+    private static final int MAX_ANYTIME_DEPTH = 50;  // Game.maxHops – no line is longer
+    private static final int GRAPH_LOOKAHEAD_DEPTH = 4;  // boards over 128 cells: makeMove per node, no table
+    private static final byte VIRUS = (byte) TileType.VIRUS.ordinal();
+    private static final byte HUB = (byte) TileType.HUB.ordinal();
+
+    // Tunable for engine comparisons; the constants above are the defaults
+    private int lookaheadDepth = LOOKAHEAD_DEPTH;
+    private double clusterPenaltyWeight = CLUSTER_PENALTY_WEIGHT;
+    private double hubBonus = HUB_BONUS;
+
+    private long timeBudgetMillis = 0;
+    private boolean verbose = true;
+    private final Random random;  // tie-breaks; seeded once, reused every turn
+
+    // Root scratch, one slot per playable direction, reused every turn so scoring allocates nothing
+    private final int[] rootDir = new int[8];
+    private final int[] rootEnd = new int[8];
+    private final long[] rootGotLo = new long[8];
+    private final long[] rootGotHi = new long[8];
+    private final boolean[] rootCrash = new boolean[8];
+    private final double[] baseScore = new double[8];   // immediate - cluster penalty + hub bonus
+    private final double[] clusterDist = new double[8];
+    private final double[] futureScore = new double[8];
+    private final double[] pending = new double[8];      // searchRoot results until the depth completes
+    private final int[] rank = new int[8];               // slots, best first
+    private int rootCount;
+
+    private final DPMemoCache memo = new DPMemoCache();  // kept for the whole game
+    private SlideTable memoLayout;
+    private final DPMemoCache.DistanceCalculator clusterDistance = this::distanceToCluster;
+    private DistanceField field;     // this turn's board
+    private long liveLo, liveHi;     // data on the board this turn
+
+    public GreedyStrategy() {
+        this(System.nanoTime());
+    }
 
-    private static class SimulationResult {
-        GraphNode endNode;
-        int dataCollected;
-        boolean hitsVirus;
-        Set<GraphNode> collectedNodes;
+    public GreedyStrategy(long seed) {
+        this.random = new Random(seed);
+    }
 
-        SimulationResult(GraphNode endNode, int dataCollected, boolean hitsVirus, Set<GraphNode> collectedNodes) {
-            this.endNode = endNode;
-            this.dataCollected = dataCollected;
-            this.hitsVirus = hitsVirus;
-            this.collectedNodes = collectedNodes;
-        }
+    // Read from the board's distance field, minus what the slide collects
+    private double distanceToCluster(int cell, long remainingLo, long remainingHi) {
+        return field.average(cell, liveLo & ~remainingLo, liveHi & ~remainingHi);
     }
 
-    private SimulationResult simulateSlide(BoardGraph graph, GraphNode start, Direction dir) {
-        GraphNode next = start.getNeighbor(dir);
-        if (next == null || next.getType() == TileType.FIREWALL) {
-            return new SimulationResult(start, 0, false, new HashSet<>());
-        }
+    // DP Solver instance – now minimax
+    private final DPDepthSolver dpSolver = new DPDepthSolver();
 
-        GraphNode current = start;
-        int dataCollected = 0;
-        boolean hitsVirus = false;
-        Set<GraphNode> collectedNodes = new HashSet<>();
+    // Exact play once only a few DATA tiles are left
+    private final EndgameSolver endgame = new EndgameSolver();
 
-        while (true) {
-            current = next;
+    // Lookahead for boards too large for the slide table
+    private final GraphLookahead graphLookahead = new GraphLookahead();
 
-            if (current.getType() == TileType.DATA) {
-                dataCollected++;
-                collectedNodes.add(current);
-            } else if (current.getType() == TileType.VIRUS) {
-                hitsVirus = true;
-            }
+    // Parallel root split: one solver per direction over the same table
+    private int threads = 1;
+    private ForkJoinPool pool;
+    private final DPDepthSolver[] workerSolvers = new DPDepthSolver[8];
 
-            if (current.getType() == TileType.HUB) break;
+    public Direction getBestDirection(BoardGraph graph) {
+        return getBestDirection(graph, MAX_ANYTIME_DEPTH);
+    }
 
-            next = current.getNeighbor(dir);
-            if (next == null || next.getType() == TileType.FIREWALL) break;
+    /**
+     * The lookahead never searches past the end of the game. Boards over 128 cells have
+     * no slide table; there the moves are played on the graph itself, see GraphLookahead.
+     */
+    @Override
+    public Direction getBestDirection(BoardGraph graph, int hopsLeft) {
+        int maxDepth = Math.max(1, Math.min(hopsLeft, MAX_ANYTIME_DEPTH));
+        SlideTable slides = graph.getSlideTable();
+        GraphNode playerNode = graph.getPlayerNode();
+        int from = playerNode.getY() * graph.getWidth() + playerNode.getX();
+        long dataLo = graph.getDataLo();
+        long dataHi = graph.getDataHi();
+        field = graph.getDistanceField();
+        liveLo = dataLo;
+        liveHi = dataHi;
+
+        if (slides != null && endgame.getThreshold() > 0 && endgame.applies(dataLo, dataHi)) {
+            int margin = endgame.solve(slides, from, dataLo, dataHi, maxDepth);
+            if (!endgame.isAborted() && endgame.getBestMove() >= 0) {
+                Direction dir = Direction.ALL.get(endgame.getBestMove());
+                if (verbose) {
+                    System.out.println("Endgame solved: " + dir + " | exact margin=" + margin
+                            + " | cached positions=" + endgame.size());
+                }
+                return dir;
+            }
         }
 
-        return new SimulationResult(current, dataCollected, hitsVirus, collectedNodes);
-    }
+        int n = 0;
+        if (slides == null) {
+            n = scoreRootOnGraph(graph);
+        } else {
+            dpSolver.newSearch();
+            if (slides != memoLayout || !memo.covers(dataLo, dataHi)) {
+                memo.startLayout(dataLo, dataHi);
+                memoLayout = slides;
+            }
 
-    private double distanceToCluster(BoardGraph graph, GraphNode from, Set<GraphNode> exclude) {
-        List<DCClusterDistance.Point> dataPoints = new ArrayList<>();
+            // Everything except the lookahead is fixed for the turn, so score it once
+            for (int i = 0; i < 8; i++) {
+                int end = slides.end(from, i);
+
+                if (end < 0) {
+                    continue;
+                }
+
+                long gotLo = slides.rayLo(from, i) & dataLo;
+                long gotHi = slides.rayHi(from, i) & dataHi;
+                int dataCollected = Long.bitCount(gotLo) + Long.bitCount(gotHi);
+                boolean hitsVirus = slides.crashes(from, i);
+
+                double immediateScore = hitsVirus ? -DEATH_PENALTY : dataCollected * DATA_VALUE;
+
+                double dist = memo.getOrComputeDistance(end, dataLo & ~gotLo, dataHi & ~gotHi, clusterDistance);
+                double clusterPenalty = dist * clusterPenaltyWeight;
+
+                // Hub bonus – encourage safe endings
+                double hubBonus = slides.endsOnHub(from, i) ? this.hubBonus : 0;
+
+                rootDir[n] = i;
+                rootEnd[n] = end;
+                rootGotLo[n] = gotLo;
+                rootGotHi[n] = gotHi;
+                rootCrash[n] = hitsVirus;
+                baseScore[n] = immediateScore - clusterPenalty + hubBonus;
+                clusterDist[n] = dist;
+                futureScore[n] = 0;
+                rank[n] = n;
+                n++;
+            }
+        }
+        rootCount = n;
 
-        for (GraphNode node : graph.getAllNodes()) {
-            if (node.getType() == TileType.DATA && !exclude.contains(node)) {
-                dataPoints.add(new DCClusterDistance.Point(node.getX(), node.getY()));
+        // Deadlock fix: If no valid move, skip turn
+        if (n == 0) {
+            if (verbose) {
+                System.out.println("CPU has no valid moves – skipping turn");
             }
+            return null;  // Game can handle null as skip
         }
 
-        if (dataPoints.isEmpty()) return 0.0;
+        // Minimax lookahead – assumes human minimizes CPU score; a crash ends the game
+        int depth;
+        if (slides == null) {
+            depth = lookaheadOnGraph(graph, maxDepth);
+        } else if (timeBudgetMillis > 0) {
+            depth = deepenWithinBudget(slides, dataLo, dataHi, maxDepth);
+        } else {
+            depth = Math.min(lookaheadDepth, maxDepth);
+            searchRoot(slides, dataLo, dataHi, depth);
+        }
 
-        return DCClusterDistance.averageDistanceToKClosest(
-                dataPoints,
-                from.getX(),
-                from.getY(),
-                3
-        );
-    }
+        int best = rank[0];
+        for (int k = 1; k < n; k++) {
+            if (score(rank[k]) > score(best)) {
+                best = rank[k];
+            }
+        }
 
-    // DP Solver instance – now minimax
-    private final DPDepthSolver dpSolver = new DPDepthSolver();
+        // Random tie-breaker for top 2 (avoid repetition)
+        rankByScore();
+        if (n > 1 && score(rank[0]) == score(rank[1])) {
+            best = random.nextBoolean() ? rank[0] : rank[1];
+        }
 
-    public Direction getBestDirection(BoardGraph graph) {
-        GraphNode playerNode = graph.getPlayerNode();
-        Direction bestDir = null;
-        double bestScore = Double.NEGATIVE_INFINITY;
+        // Logging for debugging & demo
+        if (verbose) {
+            System.out.println("Top 3 directions this turn (minimax DP depth " + depth + " + cluster):");
+            for (int k = 0; k < Math.min(3, n); k++) {
+                int r = rank[k];
+                System.out.printf("%d: %s | total=%.1f | futureMinimax=%.1f | clusterPenalty=%.1f%n",
+                        k + 1, Direction.ALL.get(rootDir[r]), score(r), futureScore[r],
+                        clusterDist[r] * clusterPenaltyWeight);
+            }
+            System.out.printf("Cluster cache: %d entries | hits=%d misses=%d evictions=%d%n",
+                    memo.size(), memo.getHits(), memo.getMisses(), memo.getEvictions());
+        }
 
-        DPMemoCache memo = new DPMemoCache();
+        return Direction.ALL.get(rootDir[best]);
+    }
 
-        List<ScoredDirection> scoredDirs = new ArrayList<>();
+    // Root moves played on the graph: the same score as from the slide table, read after the slide
+    private int scoreRootOnGraph(BoardGraph graph) {
+        CompactGraph compact = graph.getCompactGraph();
+        int n = 0;
+        for (int i = 0; i < 8; i++) {
+            int dataCollected = graph.makeMove(Direction.ALL.get(i));
+            if (dataCollected < 0) {
+                continue;
+            }
+            int end = compact.getPlayer();
+            boolean hitsVirus = compact.type(end) == VIRUS;
+            double immediateScore = hitsVirus ? -DEATH_PENALTY : dataCollected * DATA_VALUE;
+            double dist = field.average(end);  // the field has already dropped what the slide took
+            double hubBonus = compact.type(end) == HUB ? this.hubBonus : 0;
+            graph.unmakeMove();
+
+            rootDir[n] = i;
+            rootEnd[n] = end;
+            rootGotLo[n] = 0;
+            rootGotHi[n] = 0;
+            rootCrash[n] = hitsVirus;
+            baseScore[n] = immediateScore - dist * clusterPenaltyWeight + hubBonus;
+            clusterDist[n] = dist;
+            futureScore[n] = 0;
+            rank[n] = n;
+            n++;
+        }
+        return n;
+    }
 
-        for (Direction dir : Direction.ALL) {
-            SimulationResult sim = simulateSlide(graph, playerNode, dir);
+    /**
+     * GraphLookahead under every root move: to GRAPH_LOOKAHEAD_DEPTH (at most the fixed
+     * lookahead), or deepening until the time budget runs out. Returns the depth reached.
+     */
+    private int lookaheadOnGraph(BoardGraph graph, int maxDepth) {
+        int fixed = Math.min(Math.min(lookaheadDepth, GRAPH_LOOKAHEAD_DEPTH), maxDepth);
+        if (timeBudgetMillis <= 0) {
+            return searchRootOnGraph(graph, fixed) ? fixed : 0;
+        }
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        graphLookahead.setDeadline(deadline);
+        int completed = 0;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                if (!searchRootOnGraph(graph, depth)) {
+                    break;
+                }
+                completed = depth;
+                rankByScore();
+                if (System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+            }
+        } finally {
+            graphLookahead.clearDeadline();
+        }
+        return completed;
+    }
 
-            if (sim.endNode == playerNode && sim.dataCollected == 0) {
+    // Like searchRoot, on the graph; false if stopped or out of time, scores untouched
+    private boolean searchRootOnGraph(BoardGraph graph, int depth) {
+        for (int k = 0; k < rootCount; k++) {
+            int r = rank[k];
+            pending[r] = 0;
+            if (rootCrash[r]) {
                 continue;
             }
+            graph.makeMove(Direction.ALL.get(rootDir[r]));
+            pending[r] = -graphLookahead.search(graph, depth - 1);  // the human moves next
+            graph.unmakeMove();
+            if (graphLookahead.isAborted()) {
+                return false;
+            }
+        }
+        System.arraycopy(pending, 0, futureScore, 0, rootCount);
+        return true;
+    }
 
-            double immediateScore = sim.hitsVirus ? -DEATH_PENALTY : sim.dataCollected * DATA_VALUE;
+    private double score(int slot) {
+        return baseScore[slot] + futureScore[slot];
+    }
 
-            // Minimax lookahead – assumes human minimizes CPU score
-            double futureScore = dpSolver.dpMinimax(graph, sim.endNode, LOOKAHEAD_DEPTH - 1, false);  // false = human's turn next
+    // Stable insertion sort of the rank array, best total first
+    private void rankByScore() {
+        for (int k = 1; k < rootCount; k++) {
+            int slot = rank[k];
+            double value = score(slot);
+            int j = k;
+            while (j > 0 && score(rank[j - 1]) < value) {
+                rank[j] = rank[j - 1];
+                j--;
+            }
+            rank[j] = slot;
+        }
+    }
 
-            double clusterDist = memo.getOrComputeDistance(
-                    graph,
-                    sim.endNode,
-                    sim.collectedNodes,
-                    (g, f, e) -> distanceToCluster(g, f, e)
-            );
-            double clusterPenalty = clusterDist * CLUSTER_PENALTY_WEIGHT;
+    /**
+     * Runs the lookahead under every root move to the given total depth, in rank order.
+     * Returns false if the solver ran out of time, in which case the scores are not touched.
+     */
+    private boolean searchRoot(SlideTable slides, long dataLo, long dataHi, int depth) {
+        if (threads > 1) {
+            return searchRootParallel(slides, dataLo, dataHi, depth);
+        }
 
-            // Hub bonus – encourage safe endings
-            double hubBonus = (sim.endNode.getType() == TileType.HUB) ? HUB_BONUS : 0;
+        for (int k = 0; k < rootCount; k++) {
+            int r = rank[k];
+            pending[r] = 0;
+            if (rootCrash[r]) {
+                continue;
+            }
+            pending[r] = dpSolver.dpMinimax(slides, rootEnd[r], dataLo & ~rootGotLo[r], dataHi & ~rootGotHi[r],
+                    depth - 1, false);  // false = human's turn next
+            if (dpSolver.isAborted()) {
+                return false;
+            }
+        }
+        System.arraycopy(pending, 0, futureScore, 0, rootCount);
+        return true;
+    }
 
-            double totalScore = immediateScore + futureScore - clusterPenalty + hubBonus;
+    /**
+     * Root split: each direction is searched by its own solver on the pool, all sharing the
+     * lock-free transposition table. Every root child gets a full window, so its value is the
+     * exact minimax value and the result matches the sequential search.
+     */
+    private boolean searchRootParallel(SlideTable slides, long dataLo, long dataHi, int depth) {
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int k = 0; k < rootCount; k++) {
+            int r = rank[k];
+            DPDepthSolver worker = workerSolvers[rootDir[r]];
+            boolean crash = rootCrash[r];
+            int end = rootEnd[r];
+            long childLo = dataLo & ~rootGotLo[r];
+            long childHi = dataHi & ~rootGotHi[r];
+            tasks.add(() -> crash ? 0.0 : worker.dpMinimax(slides, end, childLo, childHi, depth - 1, false));
+        }
 
-            scoredDirs.add(new ScoredDirection(dir, totalScore, clusterDist, futureScore));
+        List<Future<Double>> results = pool.invokeAll(tasks);
 
-            if (totalScore > bestScore) {
-                bestScore = totalScore;
-                bestDir = dir;
+        for (int k = 0; k < rootCount; k++) {
+            int r = rank[k];
+            if (workerSolvers[rootDir[r]].isAborted()) {
+                return false;
+            }
+            try {
+                pending[r] = results.get(k).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Root search failed", e.getCause());
             }
         }
+        System.arraycopy(pending, 0, futureScore, 0, rootCount);
+        return true;
+    }
 
-        // Deadlock fix: If no valid move, skip turn
-        if (bestDir == null) {
-            System.out.println("CPU has no valid moves – skipping turn");
-            return null;  // Game can handle null as skip
+    /**
+     * Number of threads for the root search; 1 keeps everything on the calling thread.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
         }
+        if (threads == this.threads) {
+            return;
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.threads = threads;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            for (int i = 0; i < workerSolvers.length; i++) {
+                workerSolvers[i] = new DPDepthSolver(dpSolver.getTable());
+            }
+        }
+    }
 
-        // Random tie-breaker for top 2 (avoid repetition)
-        if (!scoredDirs.isEmpty()) {
-            scoredDirs.sort((a, b) -> Double.compare(b.score, a.score));
-            if (scoredDirs.size() > 1 && scoredDirs.get(0).score == scoredDirs.get(1).score) {
-                // Random between top 2 if tie
-                Random rand = new Random();
-                bestDir = rand.nextBoolean() ? scoredDirs.get(0).dir : scoredDirs.get(1).dir;
+    /**
+     * Anytime mode: deepens 1, 2, 3… until the time budget runs out and keeps the scores
+     * of the last depth that finished. Each iteration searches the previous best move first,
+     * and the transposition table carries best replies down from the shallower searches.
+     */
+    private int deepenWithinBudget(SlideTable slides, long dataLo, long dataHi, int maxDepth) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        dpSolver.setDeadline(deadline);
+        if (threads > 1) {
+            for (DPDepthSolver worker : workerSolvers) {
+                worker.setDeadline(deadline);
             }
         }
 
-        // Logging for debugging & demo
-        if (!scoredDirs.isEmpty()) {
-            System.out.println("Top 3 directions this turn (minimax DP + cluster):");
-            for (int i = 0; i < Math.min(3, scoredDirs.size()); i++) {
-                ScoredDirection sd = scoredDirs.get(i);
-                System.out.printf("%d: %s | total=%.1f | futureMinimax=%.1f | clusterPenalty=%.1f%n",
-                        i + 1, sd.dir, sd.score, sd.futureScore, sd.clusterDist * CLUSTER_PENALTY_WEIGHT);
+        int completed = 0;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                if (!searchRoot(slides, dataLo, dataHi, depth)) {
+                    break;
+                }
+                completed = depth;
+                rankByScore();
+                if (System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+            }
+        } finally {
+            dpSolver.clearDeadline();
+            if (threads > 1) {
+                for (DPDepthSolver worker : workerSolvers) {
+                    worker.clearDeadline();
+                }
             }
-        } else {
-            System.out.println("No valid moves.");
         }
+        return completed;
+    }
 
-        return bestDir;
+    /**
+     * Asks a search running on another thread to finish early. The move it returns
+     * is then meaningless and should be dropped by the caller.
+     */
+    @Override
+    public void requestStop() {
+        endgame.requestStop();
+        graphLookahead.requestStop();
+        dpSolver.requestStop();
+        for (DPDepthSolver worker : workerSolvers) {
+            if (worker != null) worker.requestStop();
+        }
     }
 
-    private static class ScoredDirection {
-        Direction dir;
-        double score;
-        double clusterDist;
-        double futureScore;
+    @Override
+    public void clearStopRequest() {
+        endgame.clearStopRequest();
+        graphLookahead.clearStopRequest();
+        dpSolver.clearStopRequest();
+        for (DPDepthSolver worker : workerSolvers) {
+            if (worker != null) worker.clearStopRequest();
+        }
+    }
 
-        ScoredDirection(Direction dir, double score, double clusterDist, double futureScore) {
-            this.dir = dir;
-            this.score = score;
-            this.clusterDist = clusterDist;
-            this.futureScore = futureScore;
+    @Override
+    public void clear() {
+        dpSolver.clear();
+        endgame.clear();
+        memo.clear();
+        memoLayout = null;
+    }
+
+    /** Fixed lookahead in plies when there is no time budget; default LOOKAHEAD_DEPTH. */
+    public void setLookaheadDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
         }
+        this.lookaheadDepth = depth;
+    }
+
+    /** Score lost per unit of cluster distance; default CLUSTER_PENALTY_WEIGHT. */
+    public void setClusterPenaltyWeight(double weight) {
+        this.clusterPenaltyWeight = weight;
+    }
+
+    /** Score for a slide that ends on a hub; default HUB_BONUS. */
+    public void setHubBonus(double bonus) {
+        this.hubBonus = bonus;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /** Anytime search budget per move; 0 searches to the fixed lookahead depth instead. */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /** Cluster-distance cache, for its hit/miss/eviction counters. */
+    public DPMemoCache getMemoCache() {
+        return memo;
+    }
+
+    /** Prints the top directions every turn; off for benchmarks and headless play. */
+    @Override
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Remaining data at or below which moves come from the exact endgame solver; 0 turns it off.
+     */
+    public void setEndgameThreshold(int threshold) {
+        endgame.setThreshold(threshold);
     }
-}
\ No newline at end of file
+}
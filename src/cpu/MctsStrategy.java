@@ -0,0 +1,343 @@
+package src.cpu;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import src.graph.BoardGraph;
+import src.graph.GraphNode;
+import src.movement.BitboardState;
+import src.movement.Direction;
+import src.movement.SlideTable;
+
+/**
+ * Monte Carlo Tree Search (UCT) engine.
+ * Instead of a fixed depth it plays random games to the end (data gone, virus hit or
+ * hop limit), so strength grows with playouts per second rather than with depth.
+ * Playouts run on the slide table and a data bitmask and allocate nothing, so boards
+ * are limited to the slide table's 128 cells.
+ * The tree is kept between turns: the next search starts from the subtree the
+ * CPU's move and the human's reply actually led to. The last few trees are kept,
+ * so searches run while pondering every human reply are picked up as well.
+ */
+public class MctsStrategy implements CpuStrategy {
+
+    public static final int DEFAULT_PLAYOUTS = 20000;
+    private static final double EXPLORATION = 0.7;
+    private static final int MAX_GAME_HOPS = 50;  // Game.maxHops – playouts never run longer
+    private static final int KEPT_TREES = 9;      // the last CPU search plus one per human reply
+
+    private int playouts = DEFAULT_PLAYOUTS;
+    private long timeBudgetMillis = 0;
+    private boolean verbose = true;
+    private volatile boolean stopRequested;
+
+    private Node root;
+    // Rewards in a reused tree stay comparable: margins count from the tree's first root
+    private int rootData;    // data left when the tree was created, scales the reward
+    private int baseMargin;  // CPU minus human data collected between that root and this one
+    private final ArrayDeque<Tree> kept = new ArrayDeque<>();  // most recent first
+    private long rng;
+    private final int[] legal = new int[8];  // playout scratch
+
+    public MctsStrategy() {
+        this(System.nanoTime());
+    }
+
+    public MctsStrategy(long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public Direction getBestDirection(BoardGraph graph, int hopsLeft) {
+        SlideTable slides = graph.getSlideTable();
+        if (slides == null) {
+            throw new IllegalArgumentException("MCTS plays out on the slide table, which covers boards of at most "
+                    + BitboardState.MAX_CELLS + " cells; this board has " + graph.getWidth() * graph.getHeight());
+        }
+        GraphNode playerNode = graph.getPlayerNode();
+        int player = playerNode.getY() * graph.getWidth() + playerNode.getX();
+        int hops = Math.min(hopsLeft, MAX_GAME_HOPS);
+
+        root = reuseOrCreateRoot(slides, player, graph.getDataLo(), graph.getDataHi(), hops);
+
+        if (root.legal == 0) {
+            if (verbose) System.out.println("CPU has no valid moves – skipping turn");
+            return null;
+        }
+
+        int reused = root.visits;
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        int done = 0;
+        // The playout count is a minimum: the clock is only read once it is reached
+        while (done < playouts || (timeBudgetMillis > 0 && System.nanoTime() - deadline < 0)) {
+            if (stopRequested) {
+                break;
+            }
+            iterate(slides);
+            done++;
+        }
+
+        // Most visited child is the most robust choice
+        Node best = null;
+        for (Node child : root.children) {
+            if (child != null && (best == null || child.visits > best.visits)) {
+                best = child;
+            }
+        }
+        if (best == null) {
+            // Stopped before the first playout; null would mean no move at all
+            return Direction.ALL.get(Integer.numberOfTrailingZeros(root.legal));
+        }
+
+        if (verbose) System.out.printf("MCTS: %d playouts (%d reused) | %s visits=%d | value=%.3f%n",
+                done, reused, Direction.ALL.get(best.move), best.visits, best.reward / best.visits);
+        return Direction.ALL.get(best.move);
+    }
+
+    /** Fixed number of playouts per move; with a time budget, this is the minimum. */
+    public void setPlayouts(int playouts) {
+        this.playouts = playouts;
+    }
+
+    /** Keeps playing out until this many milliseconds have passed; 0 uses only the playout count. */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.rng = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    @Override
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public void clearStopRequest() {
+        stopRequested = false;
+    }
+
+    @Override
+    public void clear() {
+        kept.clear();
+        root = null;
+    }
+
+    /**
+     * Looks for the current position in the kept trees: as a root searched while
+     * pondering, or two plies below an earlier root (CPU move, human reply).
+     */
+    private Node reuseOrCreateRoot(SlideTable slides, int player, long dataLo, long dataHi, int hopsLeft) {
+        Node found = null;
+        for (Iterator<Tree> it = kept.iterator(); it.hasNext() && found == null; ) {
+            Tree tree = it.next();
+            if (tree.table != slides) {
+                it.remove(); // another layout
+                continue;
+            }
+            if (tree.root.matches(player, dataLo, dataHi, hopsLeft)) {
+                found = tree.root;
+                rootData = tree.rootData;
+                baseMargin = tree.baseMargin;
+                it.remove();
+                continue;
+            }
+            for (Node mine : tree.root.children) {
+                if (mine == null || found != null) continue;
+                for (Node reply : mine.children) {
+                    if (reply != null && reply.matches(player, dataLo, dataHi, hopsLeft)) {
+                        reply.parent = null;
+                        rootData = tree.rootData;
+                        baseMargin = tree.baseMargin + mine.gain - reply.gain;
+                        found = reply;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (found == null) {
+            baseMargin = 0;
+            rootData = Math.max(1, Long.bitCount(dataLo) + Long.bitCount(dataHi));
+            found = new Node(slides, null, -1, player, dataLo, dataHi, hopsLeft, true, 0, false);
+        }
+        kept.addFirst(new Tree(found, slides, rootData, baseMargin));
+        while (kept.size() > KEPT_TREES) {
+            kept.removeLast();
+        }
+        return found;
+    }
+
+    // One selection → expansion → playout → backpropagation pass
+    private void iterate(SlideTable slides) {
+        Node node = root;
+        int margin = baseMargin;  // CPU data minus human data since the tree was created
+
+        while (!node.isTerminal() && node.untried == 0) {
+            node = select(node);
+            margin += node.parentCpu() ? node.gain : -node.gain;
+        }
+
+        if (!node.isTerminal()) {
+            int move = randomBit(node.untried);
+            node.untried &= ~(1 << move);
+            node = expand(slides, node, move);
+            margin += node.parentCpu() ? node.gain : -node.gain;
+        }
+
+        double reward = node.crashed
+                ? (node.parentCpu() ? 0.0 : 1.0)
+                : playout(slides, node.player, node.dataLo, node.dataHi, node.hopsLeft, node.cpuToMove, margin);
+
+        for (Node n = node; n != null; n = n.parent) {
+            n.visits++;
+            n.reward += reward;
+        }
+    }
+
+    // UCT; the human picks the child that is worst for the CPU
+    private Node select(Node node) {
+        double logN = Math.log(node.visits);
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node child : node.children) {
+            if (child == null) continue;
+            double mean = child.reward / child.visits;
+            double exploit = node.cpuToMove ? mean : 1.0 - mean;
+            double value = exploit + EXPLORATION * Math.sqrt(logN / child.visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private Node expand(SlideTable slides, Node node, int move) {
+        int end = slides.end(node.player, move);
+        long gotLo = slides.rayLo(node.player, move) & node.dataLo;
+        long gotHi = slides.rayHi(node.player, move) & node.dataHi;
+        boolean crashed = slides.crashes(node.player, move);
+        Node child = new Node(slides, node, move, end,
+                node.dataLo & ~gotLo, node.dataHi & ~gotHi,
+                node.hopsLeft - 1, !node.cpuToMove,
+                Long.bitCount(gotLo) + Long.bitCount(gotHi), crashed);
+        node.children[move] = child;
+        return child;
+    }
+
+    /**
+     * Random game to the end on primitives only. Moves into a virus are avoided unless
+     * they are all that is left. Returns the reward in [0, 1] from the CPU's side.
+     */
+    private double playout(SlideTable slides, int player, long dataLo, long dataHi,
+                           int hopsLeft, boolean cpuToMove, int margin) {
+        while (hopsLeft > 0 && (dataLo | dataHi) != 0) {
+            int safe = 0;
+            int crashing = 0;
+            for (int d = 0; d < 8; d++) {
+                if (slides.end(player, d) < 0) continue;
+                if (slides.crashes(player, d)) crashing++;
+                else legal[safe++] = d;
+            }
+            if (safe == 0) {
+                if (crashing > 0) {
+                    return cpuToMove ? 0.0 : 1.0;
+                }
+                break;
+            }
+
+            int d = legal[nextInt(safe)];
+            long gotLo = slides.rayLo(player, d) & dataLo;
+            long gotHi = slides.rayHi(player, d) & dataHi;
+            int gain = Long.bitCount(gotLo) + Long.bitCount(gotHi);
+            margin += cpuToMove ? gain : -gain;
+            dataLo &= ~gotLo;
+            dataHi &= ~gotHi;
+            player = slides.end(player, d);
+            cpuToMove = !cpuToMove;
+            hopsLeft--;
+        }
+        return reward(margin);
+    }
+
+    private double reward(int margin) {
+        double r = 0.5 + 0.5 * margin / rootData;
+        return Math.max(0.0, Math.min(1.0, r));
+    }
+
+    private int randomBit(int mask) {
+        int pick = nextInt(Integer.bitCount(mask));
+        for (int m = mask; ; m &= m - 1) {
+            if (pick-- == 0) return Integer.numberOfTrailingZeros(m);
+        }
+    }
+
+    // xorshift64* – no allocation, no shared state
+    private int nextInt(int bound) {
+        rng ^= rng >>> 12;
+        rng ^= rng << 25;
+        rng ^= rng >>> 27;
+        long r = (rng * 0x2545F4914F6CDD1DL) >>> 33;
+        return (int) (r % bound);
+    }
+
+    private static final class Node {
+        final int player;
+        final long dataLo, dataHi;
+        final int hopsLeft;
+        final boolean cpuToMove;
+        final int move;      // direction that led here
+        final int gain;      // data collected by that move
+        final boolean crashed;
+        final int legal;     // playable directions from here
+        Node parent;
+        final Node[] children = new Node[8];
+        int untried;
+        int visits;
+        double reward;       // sum of rewards, CPU's side
+
+        Node(SlideTable slides, Node parent, int move, int player, long dataLo, long dataHi,
+             int hopsLeft, boolean cpuToMove, int gain, boolean crashed) {
+            this.parent = parent;
+            this.move = move;
+            this.player = player;
+            this.dataLo = dataLo;
+            this.dataHi = dataHi;
+            this.hopsLeft = hopsLeft;
+            this.cpuToMove = cpuToMove;
+            this.gain = gain;
+            this.crashed = crashed;
+
+            int mask = 0;
+            if (!crashed) {
+                for (int d = 0; d < 8; d++) {
+                    if (slides.end(player, d) >= 0) mask |= 1 << d;
+                }
+            }
+            this.legal = mask;
+            this.untried = mask;
+        }
+
+        boolean matches(int player, long dataLo, long dataHi, int hopsLeft) {
+            return this.player == player && this.dataLo == dataLo && this.dataHi == dataHi
+                    && this.hopsLeft == hopsLeft && cpuToMove;
+        }
+
+        boolean parentCpu() {
+            return !cpuToMove;
+        }
+
+        boolean isTerminal() {
+            return crashed || legal == 0 || hopsLeft <= 0 || (dataLo | dataHi) == 0;
+        }
+    }
+
+    private record Tree(Node root, SlideTable table, int rootData, int baseMargin) { }
+}
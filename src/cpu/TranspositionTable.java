@@ -0,0 +1,92 @@
+package src.cpu;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table on two primitive arrays, so memory never grows.
+ * Each slot keeps the Zobrist key XORed with its packed data word; a torn or foreign
+ * entry fails that check, which keeps probes safe without locks.
+ *
+ * Data word layout: value (bits 0-31), depth (32-39), bound (40-41), best move (42-45),
+ * generation (48-55), and bit 63 set for every used slot.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;  // value is a lower bound (fail high)
+    public static final int UPPER = 2;  // value is an upper bound (fail low)
+    public static final int NO_MOVE = 15;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final long USED = 1L << 63;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation;
+
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        long entries = Long.highestOneBit((long) sizeMb * 1024 * 1024 / ENTRY_BYTES);
+        entries = Math.min(entries, 1L << 30);
+        this.keys = new long[(int) entries];
+        this.data = new long[(int) entries];
+        this.mask = (int) entries - 1;
+    }
+
+    /**
+     * Returns the packed data word for this key, or 0 if the position is not stored.
+     */
+    public long probe(long key) {
+        int i = (int) key & mask;
+        long d = data[i];
+        if (d != 0 && (keys[i] ^ d) == key) {
+            return d;
+        }
+        return 0;
+    }
+
+    /**
+     * Depth-preferred replacement: a slot is overwritten by the same position, by an entry
+     * from an older search, or by a result searched at least as deep.
+     */
+    public void store(long key, int depth, int bound, int value, int move) {
+        int i = (int) key & mask;
+        long old = data[i];
+        if (old != 0
+                && (keys[i] ^ old) != key
+                && generation(old) == (generation & 0xFF)
+                && depth(old) > depth) {
+            return;
+        }
+
+        long d = (value & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) (bound & 0x3) << 40)
+                | ((long) (move & 0xF) << 42)
+                | ((long) (generation & 0xFF) << 48)
+                | USED;
+        data[i] = d;
+        keys[i] = key ^ d;
+    }
+
+    /** Marks the start of a new search; entries from earlier searches become replaceable. */
+    public void newSearch() {
+        generation++;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    public int capacity() { return data.length; }
+
+    public static int value(long entry) { return (int) entry; }
+    public static int depth(long entry) { return (int) (entry >>> 32) & 0xFF; }
+    public static int bound(long entry) { return (int) (entry >>> 40) & 0x3; }
+    public static int move(long entry) { return (int) (entry >>> 42) & 0xF; }
+    private static int generation(long entry) { return (int) (entry >>> 48) & 0xFF; }
+}
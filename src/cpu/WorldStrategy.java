@@ -0,0 +1,186 @@
+package src.cpu;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.movement.Direction;
+import src.world.ChunkedWorld;
+
+/**
+ * CPU for a ChunkedWorld, scored like GreedyStrategy: data collected, minus the cluster
+ * penalty at the landing cell, plus the hub bonus, plus a minimax lookahead where the
+ * other side answers. There is no slide table or distance field for a world that size,
+ * so slides are played on the world itself and the cluster distance comes from a ring
+ * search around the landing cell. The search never changes the world; DATA taken along
+ * a line is kept in a short list instead. Both read across chunk borders, drawing the
+ * chunks they reach.
+ */
+public class WorldStrategy {
+
+    private static final int DATA_VALUE = 100;
+    private static final int DEATH_PENALTY = 99999;
+    private static final int LOOKAHEAD_DEPTH = 4;
+    private static final double CLUSTER_PENALTY_WEIGHT = 15.0;
+    private static final double HUB_BONUS = 10.0;
+    private static final int SEARCH_RADIUS = 24; // cluster distance stops looking this far out
+    private static final byte DATA = (byte) TileType.DATA.ordinal();
+
+    private final Random random;
+    private final ChunkedWorld.Slide[] slides = new ChunkedWorld.Slide[LOOKAHEAD_DEPTH + 1];
+    private long[] taken = new long[64]; // DATA collected along the line being searched
+    private int takenCount;
+    private final double[] nearest = new double[BoardGraph.CLUSTER_K];
+    private boolean verbose = true;
+
+    public WorldStrategy() {
+        this(System.nanoTime());
+    }
+
+    public WorldStrategy(long seed) {
+        this.random = new Random(seed);
+        for (int i = 0; i < slides.length; i++) {
+            slides[i] = new ChunkedWorld.Slide();
+        }
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /** Best move for the side to move, or null if it has no playable direction. */
+    public Direction getBestDirection(ChunkedWorld world, int hopsLeft) {
+        int depth = Math.max(1, Math.min(LOOKAHEAD_DEPTH, hopsLeft));
+        int x = world.getPlayerX();
+        int y = world.getPlayerY();
+        ChunkedWorld.Slide s = slides[depth];
+        takenCount = 0;
+
+        Direction best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double bestCluster = 0;
+        for (Direction d : Direction.ALL) {
+            if (!world.slide(x, y, d, taken, 0, s)) {
+                continue;
+            }
+            double score;
+            double cluster = 0;
+            if (s.crash) {
+                score = -DEATH_PENALTY;
+            } else {
+                int mark = take(s);
+                cluster = clusterDistance(world, s.endX, s.endY);
+                score = s.collected * DATA_VALUE - cluster * CLUSTER_PENALTY_WEIGHT
+                        + (s.hub ? HUB_BONUS : 0);
+                score -= negamax(world, s.endX, s.endY, depth - 1);
+                takenCount = mark;
+            }
+            if (score > bestScore || (score == bestScore && random.nextBoolean())) {
+                bestScore = score;
+                bestCluster = cluster;
+                best = d;
+            }
+        }
+
+        if (verbose) {
+            if (best == null) {
+                System.out.println("CPU has no valid moves – skipping turn");
+            } else {
+                System.out.printf("World CPU: %s | total=%.1f | clusterPenalty=%.1f | depth %d | chunks %d%n",
+                        best, bestScore, bestCluster * CLUSTER_PENALTY_WEIGHT, depth, world.getChunkCount());
+            }
+        }
+        return best;
+    }
+
+    // Best margin for the side to move over the next depth hops; a crash ends the line
+    private double negamax(ChunkedWorld world, int x, int y, int depth) {
+        if (depth == 0) {
+            return 0;
+        }
+        ChunkedWorld.Slide s = slides[depth];
+        double best = Double.NEGATIVE_INFINITY;
+        for (Direction d : Direction.ALL) {
+            if (!world.slide(x, y, d, taken, takenCount, s)) {
+                continue;
+            }
+            double value;
+            if (s.crash) {
+                value = -DEATH_PENALTY;
+            } else {
+                value = s.collected * DATA_VALUE;
+                int mark = take(s);
+                value -= negamax(world, s.endX, s.endY, depth - 1);
+                takenCount = mark;
+            }
+            best = Math.max(best, value);
+        }
+        return best == Double.NEGATIVE_INFINITY ? 0 : best;
+    }
+
+    // Adds the slide's DATA to the taken list; returns the length to cut it back to
+    private int take(ChunkedWorld.Slide s) {
+        int mark = takenCount;
+        if (takenCount + s.collected > taken.length) {
+            taken = Arrays.copyOf(taken, Math.max(taken.length * 2, takenCount + s.collected));
+        }
+        System.arraycopy(s.cells, 0, taken, takenCount, s.collected);
+        takenCount += s.collected;
+        return mark;
+    }
+
+    /**
+     * Average distance to the CLUSTER_K nearest DATA not yet taken, searched ring by ring;
+     * SEARCH_RADIUS when there is none within it.
+     */
+    double clusterDistance(ChunkedWorld world, int x, int y) {
+        int k = nearest.length;
+        int found = 0;
+        for (int r = 1; r <= SEARCH_RADIUS; r++) {
+            for (int dy = -r; dy <= r; dy++) {
+                // Whole rows at the top and bottom of the ring, two cells on the rows between
+                int step = dy == -r || dy == r ? 1 : 2 * r;
+                for (int dx = -r; dx <= r; dx += step) {
+                    int cx = x + dx;
+                    int cy = y + dy;
+                    if (!world.inBounds(cx, cy) || world.type(cx, cy) != DATA) {
+                        continue;
+                    }
+                    long cell = (long) cy * world.getWidth() + cx;
+                    boolean gone = false;
+                    for (int i = 0; i < takenCount; i++) {
+                        if (taken[i] == cell) { gone = true; break; }
+                    }
+                    if (gone) continue;
+                    found = insert(found, Math.sqrt(dx * dx + dy * dy));
+                }
+            }
+            // Every cell further out is at least r + 1 away
+            if (found == k && nearest[k - 1] <= r + 1) {
+                break;
+            }
+        }
+        if (found == 0) {
+            return SEARCH_RADIUS;
+        }
+        double sum = 0;
+        for (int i = 0; i < found; i++) sum += nearest[i];
+        return sum / found;
+    }
+
+    // Keeps the k smallest distances in ascending order
+    private int insert(int found, double d) {
+        int k = nearest.length;
+        if (found == k && d >= nearest[k - 1]) {
+            return found;
+        }
+        int i = found == k ? k - 1 : found++;
+        while (i > 0 && nearest[i - 1] > d) {
+            nearest[i] = nearest[i - 1];
+            i--;
+        }
+        nearest[i] = d;
+        return found;
+    }
+}
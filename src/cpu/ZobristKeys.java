@@ -0,0 +1,49 @@
+package src.cpu;
+
+import src.movement.BitboardState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for search positions: player cell, remaining DATA cells and side to move.
+ * Terrain is not hashed, so tables keyed by these values must be cleared on a new layout.
+ */
+public final class ZobristKeys {
+
+    private static final long[] PLAYER = new long[BitboardState.MAX_CELLS];
+    private static final long[] DATA = new long[BitboardState.MAX_CELLS];
+    public static final long SIDE;
+
+    static {
+        // Fixed seed – hashes are reproducible between runs
+        SplittableRandom rand = new SplittableRandom(0x5EEDC0DEL);
+        for (int i = 0; i < BitboardState.MAX_CELLS; i++) {
+            PLAYER[i] = rand.nextLong();
+            DATA[i] = rand.nextLong();
+        }
+        SIDE = rand.nextLong();
+    }
+
+    private ZobristKeys() {}
+
+    public static long player(int cell) {
+        return PLAYER[cell];
+    }
+
+    /** XOR of the keys of every cell in the mask; used incrementally for collected data. */
+    public static long data(long maskLo, long maskHi) {
+        long h = 0;
+        for (long m = maskLo; m != 0; m &= m - 1) {
+            h ^= DATA[Long.numberOfTrailingZeros(m)];
+        }
+        for (long m = maskHi; m != 0; m &= m - 1) {
+            h ^= DATA[64 + Long.numberOfTrailingZeros(m)];
+        }
+        return h;
+    }
+
+    public static long hash(int player, long dataLo, long dataHi, boolean isCpuTurn) {
+        long h = PLAYER[player] ^ data(dataLo, dataHi);
+        return isCpuTurn ? h ^ SIDE : h;
+    }
+}
@@ -0,0 +1,66 @@
+package src.cpu.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import src.cpu.ClusterDistanceKernel;
+
+/**
+ * ClusterDistanceKernel's pass over the data on the Vector API. Each vector of data
+ * coordinates is loaded once and used for every query of the block; a lane-wise compare
+ * against the query's k-th smallest so far picks the few distances that can get in, and
+ * only those go through ClusterDistanceKernel.offer. Needs the incubator module at compile
+ * and run time (--add-modules jdk.incubator.vector); the kernel only loads this class when
+ * the JVM has the module.
+ */
+public final class VectorBlockScan implements ClusterDistanceKernel.BlockScan {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final double[] lanes = new double[SPECIES.length()];
+    private double[] limit = new double[0];  // per query: a distance has to be below this to get in
+
+    @Override
+    public void scan(double[] xs, double[] ys, int n, double[] qx, double[] qy, int queries, int k,
+                     double[] top, int[] kept) {
+        if (limit.length < queries) {
+            limit = new double[queries];
+        }
+        for (int b = 0; b < queries; b++) {
+            limit[b] = Double.POSITIVE_INFINITY;
+        }
+
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            for (int b = 0; b < queries; b++) {
+                DoubleVector dx = x.sub(qx[b]);
+                DoubleVector dy = y.sub(qy[b]);
+                DoubleVector d = dx.mul(dx).add(dy.mul(dy));  // no fma: same bits as the scalar loop
+                VectorMask<Double> in = d.lt(limit[b]);
+                if (in.anyTrue()) {
+                    d.intoArray(lanes, 0);
+                    for (int lane = in.firstTrue(); lane < lanes.length; lane++) {
+                        if (lanes[lane] < limit[b]) {  // the limit drops as lanes get in
+                            limit[b] = ClusterDistanceKernel.offer(top, kept, b, k, lanes[lane]);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (; i < n; i++) {
+            for (int b = 0; b < queries; b++) {
+                double dx = xs[i] - qx[b];
+                double dy = ys[i] - qy[b];
+                double d = dx * dx + dy * dy;
+                if (d < limit[b]) {
+                    limit[b] = ClusterDistanceKernel.offer(top, kept, b, k, d);
+                }
+            }
+        }
+    }
+}
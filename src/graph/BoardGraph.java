@@ -2,69 +2,259 @@ package src.graph;
 
 import src.board.Board;
 import src.board.TileType;
+import src.movement.BitboardState;
 import src.movement.Direction;
+import src.movement.SlideTable;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 
 
+/**
+ * The game position over a CompactGraph: tiles and packet live in its arrays, and the
+ * GraphNodes handed out are views of its cells. Also keeps what the search reads: the
+ * DATA count, the slide table and data mask on small boards, and the distance field.
+ */
 public class BoardGraph {
-    private GraphNode playerNode;
-    private List<GraphNode> allNodes;
+    private final CompactGraph compact;
+    private final List<GraphNode> allNodes = new AbstractList<>() {
+        @Override public GraphNode get(int cell) { return compact.getNode(cell); }
+        @Override public int size() { return compact.getCellCount(); }
+    };
     private int width, height;
     private int totalData; 
+    private SlideTable slideTable; // null when the board is too large for bitboards
+    private long dataLo, dataHi;   // live DATA mask, kept in step with the tiles
+    private DistanceField distanceField; // k-nearest data distance for every cell
+
+    // Undo stack, per move: collected cells, their count, then the previous player cell
+    private int[] undo = new int[64];
+    private int undoTop;
+    private int undoMoves;
+
+    public static final int CLUSTER_K = 3;       // data tiles averaged per cluster distance
+    private static final int CLUSTER_DEPTH = 8;  // nearest tiles remembered per cell
 
     public BoardGraph(Board board) {
         this.width = board.getWidth();
         this.height = board.getHeight();
-        this.allNodes = new ArrayList<>();
-        this.totalData = 0;
+        this.compact = new CompactGraph(width, height);
         reinitialize(board);
     }
 
     public void reinitialize(Board board) {
-    this.allNodes.clear(); // Clear old nodes for a fresh start
     this.totalData = 0;
-    GraphNode[][] tempGrid = new GraphNode[height][width];
-
-    // 1. Create Nodes from the Board's random grid
-    for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-            TileType type = board.getTile(x, y).getType(); // Read directly from Board
-            GraphNode node = new GraphNode(x, y, type);
-            
-            if (type == TileType.DATA) totalData++;
-            if (type == TileType.START) {
-                playerNode = node;
-                playerNode.setPlayer(true);
-                // In your logic, Start also acts as a Hub
-                node.setType(TileType.HUB); 
-            }
+    this.undoTop = 0;
+    this.undoMoves = 0;
+    if (board.getWidth() != width || board.getHeight() != height) {
+        throw new IllegalArgumentException("Board is " + board.getWidth() + "x" + board.getHeight()
+                + ", graph is " + width + "x" + height);
+    }
 
-            tempGrid[y][x] = node;
-            allNodes.add(node);
+    // 1. Tile types straight from the Board's layout; the neighbour table never changes
+    byte[] layout = new byte[width * height];
+    board.copyLayout(layout);
+    compact.setPlayer(CompactGraph.NONE);
+    for (int cell = 0; cell < layout.length; cell++) {
+        if (layout[cell] == CompactGraph.DATA) totalData++;
+        if (layout[cell] == TileType.START.ordinal()) {
+            compact.setPlayer(cell);
+            // In your logic, Start also acts as a Hub
+            layout[cell] = CompactGraph.HUB;
         }
     }
+    compact.load(layout);
 
-    // 2. Link Neighbors (Keep your existing linking logic)
-    for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-            GraphNode current = tempGrid[y][x];
-            for (Direction d : Direction.ALL) {
-                int nx = x + d.dx;
-                int ny = y + d.dy;
-                if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
-                    current.addNeighbor(d, tempGrid[ny][nx]);
-                }
-            }
+    // 2. Slide endpoints never change during a game, so resolve them all once
+    if (width * height <= BitboardState.MAX_CELLS) {
+        BitboardState bitboard = BitboardState.fromGraph(this);
+        slideTable = SlideTable.build(bitboard);
+        dataLo = bitboard.dataLo;
+        dataHi = bitboard.dataHi;
+    } else {
+        slideTable = null;
+        dataLo = 0;
+        dataHi = 0;
+    }
+
+    // 3. Cluster distances for every cell, patched as data is collected
+    long[] dataBits = new long[(width * height + 63) / 64];
+    for (int cell = 0; cell < layout.length; cell++) {
+        if (layout[cell] == CompactGraph.DATA) {
+            dataBits[cell >>> 6] |= 1L << cell;
         }
     }
+    distanceField = new DistanceField(width, height, dataBits, CLUSTER_K, CLUSTER_DEPTH);
+    }
+
+    /**
+     * Independent copy of the current position, safe to read on another thread while
+     * this graph keeps changing. The slide table is immutable and shared; the copy
+     * starts with no moves to take back.
+     */
+    public BoardGraph snapshot() {
+        return new BoardGraph(this);
+    }
+
+    private BoardGraph(BoardGraph source) {
+        this.width = source.width;
+        this.height = source.height;
+        this.compact = new CompactGraph(source.compact);
+        this.totalData = source.totalData;
+        this.slideTable = source.slideTable;
+        this.dataLo = source.dataLo;
+        this.dataHi = source.dataHi;
+        this.distanceField = new DistanceField(source.distanceField);
     }
 
-    public GraphNode getPlayerNode() { return playerNode; }
-    public void setPlayerNode(GraphNode node) { this.playerNode = node; }
+    public GraphNode getPlayerNode() { return compact.getNode(compact.getPlayer()); }
+    public void setPlayerNode(GraphNode node) { compact.setPlayer(node.getCell()); }
+    /** Views of every cell, in cell order. */
     public List<GraphNode> getAllNodes() { return allNodes; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
     public int getTotalData() { return totalData; }
     public void decreaseDataCount() { totalData--; }
-}
\ No newline at end of file
+
+    public GraphNode getNode(int cell) { return compact.getNode(cell); }
+    public CompactGraph getCompactGraph() { return compact; }
+    public SlideTable getSlideTable() { return slideTable; }
+    public long getDataLo() { return dataLo; }
+    public long getDataHi() { return dataHi; }
+    public DistanceField getDistanceField() { return distanceField; }
+
+    /**
+     * Turns a DATA node into BLANK and keeps the count, the data mask and the
+     * distance field in step.
+     */
+    public void collectData(GraphNode node) {
+        collectCell(node.getCell());
+    }
+
+    private void collectCell(int cell) {
+        compact.setType(cell, TileType.BLANK);
+        totalData--;
+        distanceField.remove(cell);
+        if (cell < 64) {
+            dataLo &= ~(1L << cell);
+        } else if (cell < BitboardState.MAX_CELLS) {
+            dataHi &= ~(1L << (cell - 64));
+        }
+    }
+
+    /**
+     * Plays a slide in place and records what it changed, so unmakeMove() can take it back.
+     * Returns the DATA collected, or -1 if the first step is blocked, in which case nothing
+     * changes. A slide into a virus leaves the player on the virus tile.
+     */
+    public int makeMove(Direction dir) {
+        int from = compact.getPlayer();
+        int d = dir.ordinal();
+        int collected = 0;
+        int end;
+
+        if (slideTable != null) {
+            // One table lookup for the endpoint, one AND of the ray against the live data mask
+            end = slideTable.end(from, d);
+            if (end < 0) {
+                return -1;
+            }
+            long gotLo = slideTable.rayLo(from, d) & dataLo;
+            long gotHi = slideTable.rayHi(from, d) & dataHi;
+            reserveUndo(Long.bitCount(gotLo) + Long.bitCount(gotHi) + 2);
+            for (long m = gotLo; m != 0; m &= m - 1) {
+                collected += collectAt(Long.numberOfTrailingZeros(m));
+            }
+            for (long m = gotHi; m != 0; m &= m - 1) {
+                collected += collectAt(64 + Long.numberOfTrailingZeros(m));
+            }
+        } else {
+            // Cell indices through the neighbour table; same rules as CompactGraph.slideEnd
+            int next = compact.neighbor(from, d);
+            if (next < 0 || compact.type(next) == CompactGraph.FIREWALL) {
+                return -1;
+            }
+            while (true) {
+                end = next;
+                byte type = compact.type(end);
+                if (type == CompactGraph.DATA) {
+                    reserveUndo(3);
+                    collected += collectAt(end);
+                } else if (type == CompactGraph.VIRUS || type == CompactGraph.HUB) {
+                    break;
+                }
+                next = compact.neighbor(end, d);
+                if (next < 0 || compact.type(next) == CompactGraph.FIREWALL) {
+                    break;
+                }
+            }
+            reserveUndo(2);
+        }
+
+        undo[undoTop++] = collected;
+        undo[undoTop++] = from;
+        undoMoves++;
+
+        compact.setPlayer(end);
+        return collected;
+    }
+
+    /** Takes back the last makeMove: restores the collected DATA and the player. */
+    public void unmakeMove() {
+        if (undoMoves == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        int from = undo[--undoTop];
+        int collected = undo[--undoTop];
+        for (int i = 0; i < collected; i++) {
+            restoreCell(undo[--undoTop]);
+        }
+        undoMoves--;
+
+        compact.setPlayer(from);
+    }
+
+    /** Number of moves unmakeMove() can take back. */
+    public int getUndoDepth() {
+        return undoMoves;
+    }
+
+    /** Forgets the moves unmakeMove() could take back, e.g. once the position was set directly. */
+    public void clearUndo() {
+        undoTop = 0;
+        undoMoves = 0;
+    }
+
+    private int collectAt(int cell) {
+        collectCell(cell);
+        undo[undoTop++] = cell;
+        return 1;
+    }
+
+    private void reserveUndo(int slots) {
+        if (undoTop + slots > undo.length) {
+            undo = Arrays.copyOf(undo, Math.max(undo.length * 2, undoTop + slots));
+        }
+    }
+
+    /** Exact inverse of collectData. */
+    public void restoreData(GraphNode node) {
+        restoreCell(node.getCell());
+    }
+
+    private void restoreCell(int cell) {
+        compact.setType(cell, TileType.DATA);
+        totalData++;
+        distanceField.add(cell);
+        if (slideTable == null) {
+            return; // no data mask on boards too large for bitboards
+        }
+        if (cell < 64) {
+            dataLo |= 1L << cell;
+        } else {
+            dataHi |= 1L << (cell - 64);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package src.graph;
+
+import src.board.TileType;
+import src.movement.Direction;
+
+/**
+ * The board as flat arrays indexed by cell = y * width + x. Each cell stores its TileType
+ * ordinal in one byte, and its eight neighbours sit in one int table at
+ * cell * 8 + Direction ordinal, NONE past the edge. The packet is a cell index.
+ * A step is two array reads, with no GraphNode, Tile or EnumMap in the way.
+ *
+ * The neighbour table depends only on the size, so copies share it. A GraphNode for a
+ * cell is a view made the first time it is asked for. After that, getNode returns the
+ * same object, so nodes can be compared with ==.
+ */
+public class CompactGraph {
+
+    public static final int NONE = -1; // no neighbour, or no packet on the board
+
+    static final byte FIREWALL = (byte) TileType.FIREWALL.ordinal();
+    static final byte DATA = (byte) TileType.DATA.ordinal();
+    static final byte VIRUS = (byte) TileType.VIRUS.ordinal();
+    static final byte HUB = (byte) TileType.HUB.ordinal();
+    private static final TileType[] TYPES = TileType.values();
+
+    private final int width;
+    private final int height;
+    private final int[] neighbors;
+    private final byte[] types;
+    private int player = NONE;
+    private GraphNode[] nodes; // views, made on demand
+
+    public CompactGraph(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.types = new byte[width * height];
+        this.neighbors = new int[width * height * 8];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int base = (y * width + x) << 3;
+                for (Direction d : Direction.ALL) {
+                    int nx = x + d.dx;
+                    int ny = y + d.dy;
+                    boolean inside = nx >= 0 && nx < width && ny >= 0 && ny < height;
+                    neighbors[base + d.ordinal()] = inside ? ny * width + nx : NONE;
+                }
+            }
+        }
+    }
+
+    /** Copy of the tiles and the packet; shares the neighbour table, not the views. */
+    public CompactGraph(CompactGraph source) {
+        this.width = source.width;
+        this.height = source.height;
+        this.neighbors = source.neighbors;
+        this.types = source.types.clone();
+        this.player = source.player;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getCellCount() { return types.length; }
+
+    /** Cell next to {@code cell} towards Direction ordinal {@code dir}, or NONE. */
+    public int neighbor(int cell, int dir) {
+        return neighbors[cell << 3 | dir];
+    }
+
+    public int neighbor(int cell, Direction dir) {
+        return neighbors[cell << 3 | dir.ordinal()];
+    }
+
+    /** TileType ordinal of {@code cell}. */
+    public byte type(int cell) {
+        return types[cell];
+    }
+
+    public TileType getType(int cell) {
+        return TYPES[types[cell]];
+    }
+
+    public void setType(int cell, TileType type) {
+        types[cell] = (byte) type.ordinal();
+    }
+
+    /** Packet cell, or NONE. */
+    public int getPlayer() { return player; }
+    public void setPlayer(int cell) { this.player = cell; }
+
+    /** Replaces every tile with {@code layout}, TileType ordinals in cell order. */
+    public void load(byte[] layout) {
+        System.arraycopy(layout, 0, types, 0, types.length);
+    }
+
+    /**
+     * Where a slide from {@code from} towards Direction ordinal {@code dir} stops, as
+     * BoardGraph.makeMove plays it, or NONE if the first step is blocked. Changes nothing.
+     */
+    public int slideEnd(int from, int dir) {
+        int next = neighbors[from << 3 | dir];
+        if (next < 0 || types[next] == FIREWALL) {
+            return NONE;
+        }
+        while (true) {
+            int current = next;
+            byte type = types[current];
+            if (type == VIRUS || type == HUB) {
+                return current;
+            }
+            next = neighbors[current << 3 | dir];
+            if (next < 0 || types[next] == FIREWALL) {
+                return current;
+            }
+        }
+    }
+
+    /** The view of {@code cell}, always the same object for the same cell. */
+    public GraphNode getNode(int cell) {
+        if (nodes == null) {
+            nodes = new GraphNode[types.length];
+        }
+        GraphNode node = nodes[cell];
+        if (node == null) {
+            node = new GraphNode(this, cell);
+            nodes[cell] = node;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,196 @@
+package src.graph;
+
+/**
+ * Average distance from every cell to its k nearest DATA tiles, kept for the whole board.
+ * Each cell also remembers its {@code depth} nearest data cells in ascending order, so
+ * collecting a tile only rebuilds the cells that had it in their list, and a query that
+ * leaves out a few tiles (the ones a slide would collect) rarely has to scan the board.
+ */
+public class DistanceField {
+
+    private final int width;
+    private final int cells;
+    private final int k;
+    private final int depth;
+
+    private final long[] data;       // live DATA bits, cell = y * width + x
+    private final int[] nearCell;    // cell * depth + i: i-th nearest data cell
+    private final double[] nearDist; // its distance, ascending per cell
+    private final int[] nearCount;   // entries in use per cell, below depth once data runs low
+    private final double[] average;  // k-nearest average over all live data
+    private final double[] scratchDist;
+    private final int[] scratchCell;
+
+    public DistanceField(int width, int height, long[] dataBits, int k, int depth) {
+        if (k < 1 || depth < k) {
+            throw new IllegalArgumentException("need 1 <= k <= depth");
+        }
+        this.width = width;
+        this.cells = width * height;
+        this.k = k;
+        this.depth = depth;
+        this.data = dataBits.clone();
+        this.nearCell = new int[cells * depth];
+        this.nearDist = new double[cells * depth];
+        this.nearCount = new int[cells];
+        this.average = new double[cells];
+        this.scratchDist = new double[k];
+        this.scratchCell = new int[k];
+
+        for (int cell = 0; cell < cells; cell++) {
+            rebuild(cell);
+        }
+    }
+
+    /** Independent copy, for BoardGraph snapshots. */
+    public DistanceField(DistanceField source) {
+        this.width = source.width;
+        this.cells = source.cells;
+        this.k = source.k;
+        this.depth = source.depth;
+        this.data = source.data.clone();
+        this.nearCell = source.nearCell.clone();
+        this.nearDist = source.nearDist.clone();
+        this.nearCount = source.nearCount.clone();
+        this.average = source.average.clone();
+        this.scratchDist = new double[k];
+        this.scratchCell = new int[k];
+    }
+
+    /** k-nearest average from {@code cell} over all live data; 0 when none is left. */
+    public double average(int cell) {
+        return average[cell];
+    }
+
+    /**
+     * Same average with some data left out, given as a mask over cells 0-127 – typically
+     * what a slide would collect. Read from the cell's nearest list unless too many of
+     * its entries are excluded.
+     */
+    public double average(int cell, long excludeLo, long excludeHi) {
+        if ((excludeLo | excludeHi) == 0) {
+            return average[cell];
+        }
+
+        int base = cell * depth;
+        int count = nearCount[cell];
+        int found = 0;
+        double sum = 0.0;
+        for (int i = 0; i < count && found < k; i++) {
+            int c = nearCell[base + i];
+            boolean excluded = c < 64 ? (excludeLo >>> c & 1L) != 0
+                    : c < 128 && (excludeHi >>> (c - 64) & 1L) != 0;
+            if (!excluded) {
+                sum += nearDist[base + i];
+                found++;
+            }
+        }
+
+        // Complete unless the list was cut at depth and ran out; any other data is farther away
+        if (found == k || count < depth) {
+            return found == 0 ? 0.0 : sum / found;
+        }
+        found = nearest(cell, excludeLo, excludeHi, scratchDist, scratchCell, 0, k);
+        return averageOf(scratchDist, 0, found);
+    }
+
+    /** DATA at {@code dataCell} was collected; rebuilds only the cells that listed it. */
+    public void remove(int dataCell) {
+        data[dataCell >>> 6] &= ~(1L << dataCell);
+
+        for (int cell = 0; cell < cells; cell++) {
+            int base = cell * depth;
+            int count = nearCount[cell];
+            for (int i = 0; i < count; i++) {
+                if (nearCell[base + i] == dataCell) {
+                    rebuild(cell);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** DATA at {@code dataCell} is back (a move was taken back); inserts it where it is near enough. */
+    public void add(int dataCell) {
+        data[dataCell >>> 6] |= 1L << dataCell;
+        int dx0 = dataCell % width;
+        int dy0 = dataCell / width;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int base = cell * depth;
+            int count = nearCount[cell];
+            double dx = dx0 - cell % width;
+            double dy = dy0 - cell / width;
+            double d = Math.sqrt(dx * dx + dy * dy);
+            int last = base + depth - 1;
+            if (count == depth && (d > nearDist[last]
+                    || (d == nearDist[last] && dataCell > nearCell[last]))) {
+                continue;
+            }
+
+            // Same order rebuild produces: ascending distance, ties by cell
+            int j = count < depth ? count++ : depth - 1;
+            while (j > 0 && (nearDist[base + j - 1] > d
+                    || (nearDist[base + j - 1] == d && nearCell[base + j - 1] > dataCell))) {
+                nearDist[base + j] = nearDist[base + j - 1];
+                nearCell[base + j] = nearCell[base + j - 1];
+                j--;
+            }
+            nearDist[base + j] = d;
+            nearCell[base + j] = dataCell;
+            nearCount[cell] = count;
+            average[cell] = averageOf(nearDist, base, Math.min(k, count));
+        }
+    }
+
+    private void rebuild(int cell) {
+        int base = cell * depth;
+        int count = nearest(cell, 0, 0, nearDist, nearCell, base, depth);
+        nearCount[cell] = count;
+        average[cell] = averageOf(nearDist, base, Math.min(k, count));
+    }
+
+    /**
+     * Scans the live data minus the excluded cells and writes the {@code limit} nearest to
+     * dist/cellsOut from {@code off}, ascending; ties keep cell order. Returns how many.
+     */
+    private int nearest(int cell, long excludeLo, long excludeHi,
+                        double[] dist, int[] cellsOut, int off, int limit) {
+        int qx = cell % width;
+        int qy = cell / width;
+        int count = 0;
+
+        for (int w = 0; w < data.length; w++) {
+            long bits = data[w] & ~(w == 0 ? excludeLo : w == 1 ? excludeHi : 0);
+            for (long m = bits; m != 0; m &= m - 1) {
+                int c = w * 64 + Long.numberOfTrailingZeros(m);
+                double dx = c % width - qx;
+                double dy = c / width - qy;
+                double d = Math.sqrt(dx * dx + dy * dy);
+
+                if (count == limit && d >= dist[off + limit - 1]) continue;
+                int j = count < limit ? count++ : limit - 1;
+                while (j > 0 && dist[off + j - 1] > d) {
+                    dist[off + j] = dist[off + j - 1];
+                    cellsOut[off + j] = cellsOut[off + j - 1];
+                    j--;
+                }
+                dist[off + j] = d;
+                cellsOut[off + j] = c;
+            }
+        }
+        return count;
+    }
+
+    // Sum in ascending order, the same way DCClusterDistance adds them up
+    private static double averageOf(double[] dist, int off, int count) {
+        if (count == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += dist[off + i];
+        }
+        return sum / count;
+    }
+}
@@ -1,39 +1,45 @@
 package src.graph;
 
-import src.board.Tile;
 import src.board.TileType;
 import src.movement.Direction;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 
 
+/**
+ * One cell of a CompactGraph. The node holds no tile state of its own; every read and
+ * write goes to the graph's arrays. Get nodes from CompactGraph.getNode or BoardGraph.
+ */
 public class GraphNode {
+    private final CompactGraph graph;
+    private final int cell;
     private final int x, y;
-    private final Tile tile;
-    private final Map<Direction, GraphNode> neighbors;
-
-    public GraphNode(int x, int y, TileType type) {
-        this.x = x;
-        this.y = y;
-        this.tile = new Tile(type);
-        this.neighbors = new EnumMap<>(Direction.class);
-    }
 
-    public void addNeighbor(Direction d, GraphNode node) {
-        neighbors.put(d, node);
+    GraphNode(CompactGraph graph, int cell) {
+        this.graph = graph;
+        this.cell = cell;
+        this.x = cell % graph.getWidth();
+        this.y = cell / graph.getWidth();
     }
 
     public GraphNode getNeighbor(Direction d) {
-        return neighbors.get(d);
+        int next = graph.neighbor(cell, d);
+        return next < 0 ? null : graph.getNode(next);
+    }
+
+    public TileType getType() { return graph.getType(cell); }
+    public void setType(TileType t) { graph.setType(cell, t); }
+    public boolean hasPlayer() { return graph.getPlayer() == cell; }
+
+    public void setPlayer(boolean p) {
+        if (p) {
+            graph.setPlayer(cell);
+        } else if (graph.getPlayer() == cell) {
+            graph.setPlayer(CompactGraph.NONE);
+        }
     }
 
-    public TileType getType() { return tile.getType(); }
-    public void setType(TileType t) { tile.setType(t); }
-    public boolean hasPlayer() { return tile.hasPlayer(); }
-    public void setPlayer(boolean p) { tile.setPlayer(p); }
-    
+    /** y * width + x */
+    public int getCell() { return cell; }
     public int getX() { return x; }
     public int getY() { return y; }
-}
\ No newline at end of file
+}
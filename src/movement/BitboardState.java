@@ -0,0 +1,212 @@
+package src.movement;
+
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.graph.CompactGraph;
+import src.graph.GraphNode;
+
+/**
+ * Bitboard view of a board with at most 128 cells.
+ * Cell index = y * width + x; cells 0-63 live in the low long, 64-127 in the high long.
+ * Slides are generated for all 8 directions at once with Kogge-Stone occluded fills,
+ * so the CPU search never walks GraphNode pointers.
+ */
+public class BitboardState {
+
+    public static final int MAX_CELLS = 128;
+
+    public final int width;
+    public final int height;
+
+    // Static terrain – never changes during a game
+    public final long firewallLo, firewallHi;
+    public final long virusLo, virusHi;
+    public final long hubLo, hubHi;
+
+    // Live state
+    public final long dataLo, dataHi;
+    public final int player;
+
+    // Per-direction shift and "landing allowed" mask (board minus the wrapped column)
+    private final int[] shift = new int[8];
+    private final long[] landLo = new long[8];
+    private final long[] landHi = new long[8];
+    private final long[] passLo = new long[8];
+    private final long[] passHi = new long[8];
+    private final int fillSteps;
+
+    public BitboardState(int width, int height,
+                         long firewallLo, long firewallHi,
+                         long virusLo, long virusHi,
+                         long hubLo, long hubHi,
+                         long dataLo, long dataHi,
+                         int player) {
+        if (width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Bitboard supports at most " + MAX_CELLS + " cells");
+        }
+        this.width = width;
+        this.height = height;
+        this.firewallLo = firewallLo;
+        this.firewallHi = firewallHi;
+        this.virusLo = virusLo;
+        this.virusHi = virusHi;
+        this.hubLo = hubLo;
+        this.hubHi = hubHi;
+        this.dataLo = dataLo;
+        this.dataHi = dataHi;
+        this.player = player;
+
+        int cells = width * height;
+        long boardLo = cells >= 64 ? -1L : (1L << cells) - 1;
+        long boardHi = cells <= 64 ? 0L : (cells == 128 ? -1L : (1L << (cells - 64)) - 1);
+
+        long firstColLo = 0, firstColHi = 0, lastColLo = 0, lastColHi = 0;
+        for (int y = 0; y < height; y++) {
+            int first = y * width;
+            int last = first + width - 1;
+            if (first < 64) firstColLo |= 1L << first; else firstColHi |= 1L << (first - 64);
+            if (last < 64) lastColLo |= 1L << last; else lastColHi |= 1L << (last - 64);
+        }
+
+        // Slides pass through anything that is not a firewall, hub or virus
+        long openLo = boardLo & ~firewallLo & ~hubLo & ~virusLo;
+        long openHi = boardHi & ~firewallHi & ~hubHi & ~virusHi;
+
+        for (Direction d : Direction.ALL) {
+            int i = d.ordinal();
+            shift[i] = d.dy * width + d.dx;
+            // Moving east can never land in column 0, moving west never in the last column
+            long wrapLo = d.dx > 0 ? firstColLo : d.dx < 0 ? lastColLo : 0;
+            long wrapHi = d.dx > 0 ? firstColHi : d.dx < 0 ? lastColHi : 0;
+            landLo[i] = boardLo & ~wrapLo & ~firewallLo;
+            landHi[i] = boardHi & ~wrapHi & ~firewallHi;
+            passLo[i] = openLo & ~wrapLo;
+            passHi[i] = openHi & ~wrapHi;
+        }
+
+        // Doublings needed so one fill covers the longest possible ray
+        int longest = Math.max(width, height) - 2;
+        int steps = 0;
+        while ((1 << steps) - 1 < longest) steps++;
+        this.fillSteps = steps;
+    }
+
+    public static BitboardState fromGraph(BoardGraph graph) {
+        return fromGraph(graph, graph.getPlayerNode());
+    }
+
+    public static BitboardState fromGraph(BoardGraph graph, GraphNode playerNode) {
+        long fwLo = 0, fwHi = 0, vLo = 0, vHi = 0, hLo = 0, hHi = 0, dLo = 0, dHi = 0;
+
+        CompactGraph compact = graph.getCompactGraph();
+        for (int cell = 0; cell < compact.getCellCount(); cell++) {
+            long bit = 1L << (cell & 63);
+            boolean hi = cell >= 64;
+            switch (compact.getType(cell)) {
+                case FIREWALL -> { if (hi) fwHi |= bit; else fwLo |= bit; }
+                case VIRUS -> { if (hi) vHi |= bit; else vLo |= bit; }
+                case HUB, START -> { if (hi) hHi |= bit; else hLo |= bit; }
+                case DATA -> { if (hi) dHi |= bit; else dLo |= bit; }
+                default -> { }
+            }
+        }
+
+        int player = playerNode.getCell();
+        return new BitboardState(graph.getWidth(), graph.getHeight(),
+                fwLo, fwHi, vLo, vHi, hLo, hHi, dLo, dHi, player);
+    }
+
+    public int getCellCount() { return width * height; }
+
+    public boolean isVirus(int cell) {
+        return cell < 64 ? (virusLo >>> cell & 1L) != 0 : (virusHi >>> (cell - 64) & 1L) != 0;
+    }
+
+    public boolean isHub(int cell) {
+        return cell < 64 ? (hubLo >>> cell & 1L) != 0 : (hubHi >>> (cell - 64) & 1L) != 0;
+    }
+
+    /**
+     * Fills {@code out} with the slide for every direction from {@code from}.
+     * Data never changes where a slide ends, so only the terrain masks are used here;
+     * callers AND the ray with their own data mask to find what was collected.
+     */
+    public void generateSlides(int from, Slides out) {
+        long startLo = from < 64 ? 1L << from : 0;
+        long startHi = from < 64 ? 0 : 1L << (from - 64);
+
+        for (int i = 0; i < 8; i++) {
+            int s = shift[i];
+            long genLo = startLo, genHi = startHi;
+            long proLo = passLo[i], proHi = passHi[i];
+
+            // Occluded fill: gen spreads through consecutive open cells
+            int step = s;
+            for (int k = 0; k < fillSteps; k++) {
+                long gLo = shiftLo(genLo, genHi, step);
+                long gHi = shiftHi(genLo, genHi, step);
+                genLo |= proLo & gLo;
+                genHi |= proHi & gHi;
+                long pLo = shiftLo(proLo, proHi, step);
+                long pHi = shiftHi(proLo, proHi, step);
+                proLo &= pLo;
+                proHi &= pHi;
+                step <<= 1;
+            }
+
+            // One more step lands on the stopping cell (hub, virus) unless it is a wall or edge
+            long rayLo = shiftLo(genLo, genHi, s) & landLo[i];
+            long rayHi = shiftHi(genLo, genHi, s) & landHi[i];
+
+            out.rayLo[i] = rayLo;
+            out.rayHi[i] = rayHi;
+
+            if ((rayLo | rayHi) == 0) {
+                out.end[i] = -1;
+                out.crash[i] = false;
+                continue;
+            }
+
+            int end;
+            if (s > 0) {
+                end = rayHi != 0 ? 127 - Long.numberOfLeadingZeros(rayHi) : 63 - Long.numberOfLeadingZeros(rayLo);
+            } else {
+                end = rayLo != 0 ? Long.numberOfTrailingZeros(rayLo) : 64 + Long.numberOfTrailingZeros(rayHi);
+            }
+            out.end[i] = end;
+            out.crash[i] = isVirus(end);
+        }
+    }
+
+    // Signed shift of a 128-bit value; positive moves bits towards higher cell indices
+    public static long shiftLo(long lo, long hi, int s) {
+        if (s >= 0) {
+            if (s == 0) return lo;
+            return s >= 64 ? 0 : lo << s;
+        }
+        int r = -s;
+        if (r >= 64) return r >= 128 ? 0 : hi >>> (r - 64);
+        return (lo >>> r) | (hi << (64 - r));
+    }
+
+    public static long shiftHi(long lo, long hi, int s) {
+        if (s >= 0) {
+            if (s == 0) return hi;
+            if (s >= 64) return s >= 128 ? 0 : lo << (s - 64);
+            return (hi << s) | (lo >>> (64 - s));
+        }
+        int r = -s;
+        return r >= 64 ? 0 : hi >>> r;
+    }
+
+    /**
+     * Reusable output buffer for {@link #generateSlides}, indexed by Direction ordinal.
+     * end is -1 when the first step is blocked (edge or firewall).
+     */
+    public static class Slides {
+        public final int[] end = new int[8];
+        public final boolean[] crash = new boolean[8];
+        public final long[] rayLo = new long[8];
+        public final long[] rayHi = new long[8];
+    }
+}
@@ -0,0 +1,66 @@
+package src.movement;
+
+/**
+ * Precomputed slides for every (cell, direction) pair of one layout.
+ * Collecting DATA only turns it into BLANK, which never changes where a slide
+ * stops, so the table stays valid for the whole game. Entry index = cell * 8 + direction.
+ */
+public class SlideTable {
+
+    public static final int CRASH = 1;
+    public static final int HUB = 2;
+
+    private final int cells;
+    private final int[] end;
+    private final byte[] flags;
+    private final long[] rayLo;
+    private final long[] rayHi;
+
+    private SlideTable(int cells) {
+        this.cells = cells;
+        this.end = new int[cells * 8];
+        this.flags = new byte[cells * 8];
+        this.rayLo = new long[cells * 8];
+        this.rayHi = new long[cells * 8];
+    }
+
+    /**
+     * Builds the table from the terrain masks; 8 slides per cell come out of one fill.
+     */
+    public static SlideTable build(BitboardState board) {
+        int cells = board.getCellCount();
+        SlideTable table = new SlideTable(cells);
+        BitboardState.Slides slides = new BitboardState.Slides();
+
+        for (int cell = 0; cell < cells; cell++) {
+            board.generateSlides(cell, slides);
+            for (int d = 0; d < 8; d++) {
+                int i = cell * 8 + d;
+                int e = slides.end[d];
+                table.end[i] = e;
+                table.rayLo[i] = slides.rayLo[d];
+                table.rayHi[i] = slides.rayHi[d];
+                if (e >= 0) {
+                    int f = 0;
+                    if (slides.crash[d]) f |= CRASH;
+                    if (board.isHub(e)) f |= HUB;
+                    table.flags[i] = (byte) f;
+                }
+            }
+        }
+        return table;
+    }
+
+    public int getCellCount() { return cells; }
+
+    /** End cell of the slide, or -1 if the first step is blocked. */
+    public int end(int cell, int dir) { return end[cell * 8 + dir]; }
+
+    public boolean crashes(int cell, int dir) { return (flags[cell * 8 + dir] & CRASH) != 0; }
+
+    public boolean endsOnHub(int cell, int dir) { return (flags[cell * 8 + dir] & HUB) != 0; }
+
+    public long rayLo(int cell, int dir) { return rayLo[cell * 8 + dir]; }
+
+    public long rayHi(int cell, int dir) { return rayHi[cell * 8 + dir]; }
+}
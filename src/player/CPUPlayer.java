@@ -1,20 +1,219 @@
 package src.player;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import src.cpu.CpuStrategy;
 import src.cpu.GreedyStrategy;
+import src.cpu.MctsStrategy;
 import src.graph.BoardGraph;
+import src.graph.GraphNode;
 import src.movement.Direction;
+import src.movement.MoveResult;
+import src.movement.SlideSimulator;
 
 public class CPUPlayer implements Player {
 
-    private final GreedyStrategy strategy = new GreedyStrategy(); // Reuse instance
+    // Engine work runs here, never on the Swing event dispatch thread
+    private static final ExecutorService ENGINE = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cpu-engine");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Used when the caller does not know how many hops are left
+    private static final int UNKNOWN_HOPS_LEFT = 50;
+
+    private final CpuStrategy strategy; // Reuse instance
+    private boolean verbose = true;
+
+    // Pondering: the CPU's reply to each human move, searched while the human thinks
+    private final Map<Direction, Ponder> pondering = new EnumMap<>(Direction.class);
+    private Ponder ponderHit; // the search for the move the human actually played
+    private BoardGraph ponderFrom; // position the current pondering started from
+    private int ponderFromHops;
+
+    // cancel() bumps the generation; a queued search clears the stop request only if no
+    // cancel came after it was queued, so a cancelled search still running stays stopped
+    private final Object stopLock = new Object();
+    private int searchGeneration;
+
+    public CPUPlayer() {
+        this(new GreedyStrategy());
+    }
+
+    public CPUPlayer(CpuStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Strategy by name, as given on the command line: "greedy" (default) or "mcts".
+     */
+    public static CpuStrategy createStrategy(String name) {
+        return createStrategy(name, System.nanoTime());
+    }
+
+    /** Same, with the strategy's random choices seeded for reproducible games. */
+    public static CpuStrategy createStrategy(String name, long seed) {
+        return switch (name == null ? "greedy" : name.toLowerCase()) {
+            case "greedy" -> new GreedyStrategy(seed);
+            case "mcts" -> new MctsStrategy(seed);
+            default -> throw new IllegalArgumentException("Unknown CPU strategy: " + name);
+        };
+    }
+
+    public CpuStrategy getStrategy() {
+        return strategy;
+    }
+
+    /** Console logging of this player and its strategy. */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+        strategy.setVerbose(verbose);
+    }
 
     @Override
     public Direction getMove(BoardGraph graph, Scanner scanner) {
-        Direction dir = strategy.getBestDirection(graph);
-        if (dir == null) {
+        return getMove(graph, UNKNOWN_HOPS_LEFT);
+    }
+
+    @Override
+    public Direction getMove(BoardGraph graph, int hopsLeft, Scanner scanner) {
+        return getMove(graph, hopsLeft);
+    }
+
+    public Direction getMove(BoardGraph graph, int hopsLeft) {
+        Direction dir = strategy.getBestDirection(graph, hopsLeft);
+        if (dir == null && verbose) {
             System.out.println("CPU: No safe moves available!");
         }
         return dir;
     }
-}
\ No newline at end of file
+
+    /**
+     * Computes the move on the engine thread from a snapshot of the current position,
+     * so the caller's graph may keep changing. Call from the thread that owns the graph.
+     */
+    public CompletableFuture<Direction> getMoveAsync(BoardGraph graph, int hopsLeft) {
+        Ponder hit = ponderHit;
+        ponderHit = null;
+        stopPondering();
+        if (hit != null && hit.hopsLeft == hopsLeft && samePosition(hit.position, graph)) {
+            return hit.reply;
+        }
+
+        return submit(graph.snapshot(), hopsLeft);
+    }
+
+    // Queues a search on the engine thread; the stop request is cleared there, when it starts
+    private CompletableFuture<Direction> submit(BoardGraph position, int hopsLeft) {
+        int generation;
+        synchronized (stopLock) {
+            generation = searchGeneration;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (stopLock) {
+                if (generation == searchGeneration) {
+                    strategy.clearStopRequest();
+                }
+            }
+            return getMove(position, hopsLeft);
+        }, ENGINE);
+    }
+
+    /**
+     * Starts searching the CPU's answer to every legal human move from this position,
+     * most data collected first, while the human is still thinking. Searches run one
+     * after another on the engine thread, so the strategy keeps its tables and trees
+     * warm for whichever reply is played. Call on the human's turn.
+     */
+    public void startPondering(BoardGraph graph, int hopsLeft) {
+        if (!pondering.isEmpty() && ponderFromHops == hopsLeft && samePosition(ponderFrom, graph)) {
+            return; // e.g. the human bumped into a firewall – keep going
+        }
+        stopPondering();
+        ponderHit = null;
+        if (hopsLeft <= 1) {
+            return; // the human's move ends the game
+        }
+
+        List<Direction> replies = new ArrayList<>();
+        List<BoardGraph> positions = new ArrayList<>();
+        List<Integer> gains = new ArrayList<>();
+        for (Direction dir : Direction.ALL) {
+            BoardGraph after = graph.snapshot();
+            MoveResult result = SlideSimulator.simulate(after, dir);
+            if (!result.success || result.isDead || after.getTotalData() == 0) {
+                continue; // blocked, or the game is over before the CPU moves
+            }
+            int k = gains.size();
+            while (k > 0 && gains.get(k - 1) < result.dataCollected) k--;
+            replies.add(k, dir);
+            positions.add(k, after);
+            gains.add(k, result.dataCollected);
+        }
+
+        ponderFrom = graph.snapshot();
+        ponderFromHops = hopsLeft;
+        for (int i = 0; i < replies.size(); i++) {
+            BoardGraph after = positions.get(i);
+            CompletableFuture<Direction> reply = submit(after, hopsLeft - 1);
+            pondering.put(replies.get(i), new Ponder(after, hopsLeft - 1, reply));
+        }
+    }
+
+    /**
+     * The human played {@code humanMove}: keeps the search for that reply and drops
+     * the rest. Searches that have not started yet are skipped; one already running
+     * finishes first, since it shares the strategy with the search we keep.
+     */
+    public void ponderHit(Direction humanMove) {
+        Ponder hit = pondering.remove(humanMove);
+        stopPondering();
+        ponderHit = hit;
+    }
+
+    /** Drops all pondering that has not been promoted by ponderHit. */
+    public void stopPondering() {
+        for (Ponder p : pondering.values()) {
+            p.reply.cancel(false);
+        }
+        pondering.clear();
+    }
+
+    /** Cuts a running getMoveAsync search short; its result should be ignored. */
+    public void cancel() {
+        stopPondering();
+        ponderHit = null;
+        synchronized (stopLock) {
+            searchGeneration++;
+            strategy.requestStop();
+        }
+    }
+
+    /**
+     * New layout: drops pending and pondered searches, then clears the strategy's caches
+     * on the engine thread, after any search still running there.
+     */
+    public void newLayout() {
+        cancel();
+        ENGINE.execute(strategy::clear);
+    }
+
+    // Same player cell, same data left – the pondered search is valid for this turn
+    private static boolean samePosition(BoardGraph a, BoardGraph b) {
+        GraphNode pa = a.getPlayerNode();
+        GraphNode pb = b.getPlayerNode();
+        return pa.getX() == pb.getX() && pa.getY() == pb.getY()
+                && a.getTotalData() == b.getTotalData()
+                && a.getDataLo() == b.getDataLo()
+                && a.getDataHi() == b.getDataHi();
+    }
+
+    private record Ponder(BoardGraph position, int hopsLeft, CompletableFuture<Direction> reply) { }
+}
@@ -0,0 +1,37 @@
+package src.player;
+
+/**
+ * The CPU engine of one Game. The strategy and its caches live from turn to turn, so
+ * transposition table entries, cluster distances and search trees are reused; they are
+ * cleared when Game generates a new layout.
+ */
+public class EngineSession {
+
+    private final String strategyName;
+    private final CPUPlayer cpu;
+    private int layouts = 1;
+
+    public EngineSession(String strategyName) {
+        this.strategyName = strategyName;
+        this.cpu = new CPUPlayer(CPUPlayer.createStrategy(strategyName));
+    }
+
+    public CPUPlayer getCpuPlayer() {
+        return cpu;
+    }
+
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    /** Called by Game.resetGame after a new layout is generated. */
+    public void newLayout() {
+        cpu.newLayout();
+        layouts++;
+    }
+
+    /** Layouts this session has played, the current one included. */
+    public int getLayoutCount() {
+        return layouts;
+    }
+}
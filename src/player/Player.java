@@ -6,4 +6,9 @@ import src.movement.Direction;
 
 public interface Player {
     Direction getMove(BoardGraph graph, Scanner scanner);
+
+    /** Same, knowing how many hops are left in the game; engines use it to bound their search. */
+    default Direction getMove(BoardGraph graph, int hopsLeft, Scanner scanner) {
+        return getMove(graph, scanner);
+    }
 }
\ No newline at end of file
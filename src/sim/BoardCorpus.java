@@ -0,0 +1,198 @@
+package src.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import src.board.Board;
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.movement.BitboardState;
+
+/**
+ * Fixed layouts read from a memory-mapped corpus file, by index and in any order.
+ * Tiles are decoded straight from the mapping; nothing is read ahead or copied.
+ * Only absolute reads are used, so threads can share one corpus.
+ *
+ * File layout (big-endian):
+ *   header, 32 bytes: magic "PDBC", version, bits per tile (4), width, height,
+ *                     layout count (long), 8 reserved bytes
+ *   layouts: (width * height + 1) / 2 bytes each, two cells per byte, the even cell
+ *            in the low nibble; a nibble is the TileType ordinal
+ * A 10x8 layout takes 40 bytes, so a million of them fit in 40 MB.
+ */
+public class BoardCorpus {
+
+    static final int MAGIC = 0x50444243; // "PDBC"
+    static final short VERSION = 1;
+    static final int BITS_PER_TILE = 4;
+    static final int HEADER_BYTES = 32;
+
+    private static final TileType[] TYPES = TileType.values();
+
+    private final int width;
+    private final int height;
+    private final long count;
+    private final int recordBytes;
+    private final long segmentLayouts; // a mapping holds at most 2 GB, so large files take several
+    private final MappedByteBuffer[] segments;
+
+    private BoardCorpus(int width, int height, long count, MappedByteBuffer[] segments, long segmentLayouts) {
+        this.width = width;
+        this.height = height;
+        this.count = count;
+        this.recordBytes = recordBytes(width * height);
+        this.segments = segments;
+        this.segmentLayouts = segmentLayouts;
+    }
+
+    static int recordBytes(int cells) {
+        return (cells + 1) / 2;
+    }
+
+    // Two cells per byte, the even cell in the low nibble; also used by the replay log
+    static void pack(byte[] cells, ByteBuffer out) {
+        for (int i = 0; i < cells.length; i += 2) {
+            int low = cells[i];
+            int high = i + 1 < cells.length ? cells[i + 1] : 0;
+            if (low < 0 || low > 0xF || high < 0 || high > 0xF) {
+                throw new IllegalArgumentException("Tile at cell " + i + " does not fit in 4 bits");
+            }
+            out.put((byte) (low | high << 4));
+        }
+    }
+
+    // Inverse of pack, reading from absolute position at
+    static void unpack(ByteBuffer in, int at, byte[] out, int cells) {
+        for (int i = 0; i < cells; i += 2) {
+            int packed = in.get(at++);
+            out[i] = (byte) (packed & 0xF);
+            if (i + 1 < cells) out[i + 1] = (byte) ((packed >> 4) & 0xF);
+        }
+    }
+
+    public static BoardCorpus open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not a board corpus");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a board corpus");
+            }
+            if (header.getShort(4) != VERSION || header.getShort(6) != BITS_PER_TILE) {
+                throw new IOException(path + " has unsupported corpus version " + header.getShort(4));
+            }
+            int width = header.getInt(8);
+            int height = header.getInt(12);
+            long count = header.getLong(16);
+            if (width < 1 || height < 1 || count < 0) {
+                throw new IOException(path + " has a corrupt header");
+            }
+
+            int recordBytes = recordBytes(width * height);
+            if (channel.size() < HEADER_BYTES + count * recordBytes) {
+                throw new IOException(path + " is truncated: header promises " + count + " layouts");
+            }
+
+            long segmentLayouts = Math.max(1, Integer.MAX_VALUE / recordBytes);
+            int segmentCount = (int) ((count + segmentLayouts - 1) / segmentLayouts);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = i * segmentLayouts;
+                long layouts = Math.min(segmentLayouts, count - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * recordBytes, layouts * recordBytes);
+            }
+            // The mappings stay valid after the channel is closed
+            return new BoardCorpus(width, height, count, segments, segmentLayouts);
+        }
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long size() { return count; }
+
+    /** TileType ordinal of one cell of layout {@code index}. */
+    public int tile(long index, int cell) {
+        checkIndex(index);
+        MappedByteBuffer segment = segments[(int) (index / segmentLayouts)];
+        int at = (int) (index % segmentLayouts) * recordBytes + (cell >> 1);
+        int packed = segment.get(at);
+        return (cell & 1) == 0 ? packed & 0xF : (packed >> 4) & 0xF;
+    }
+
+    /** Layout {@code index} as TileType ordinals into {@code out}, cell = y * width + x. */
+    public void readLayout(long index, byte[] out) {
+        checkIndex(index);
+        int cells = width * height;
+        if (out.length < cells) {
+            throw new IllegalArgumentException("Need room for " + cells + " cells");
+        }
+        MappedByteBuffer segment = segments[(int) (index / segmentLayouts)];
+        unpack(segment, (int) (index % segmentLayouts) * recordBytes, out, cells);
+    }
+
+    /** A new Board holding layout {@code index}. */
+    public Board board(long index) {
+        byte[] cells = new byte[width * height];
+        readLayout(index, cells);
+        return Board.fromLayout(width, height, cells);
+    }
+
+    /** A new BoardGraph on layout {@code index}, the player on START. */
+    public BoardGraph graph(long index) {
+        return new BoardGraph(board(index));
+    }
+
+    /**
+     * Layout {@code index} decoded straight into bitboards, for boards of at most
+     * BitboardState.MAX_CELLS cells. START counts as a hub, as in BitboardState.fromGraph.
+     */
+    public BitboardState bitboard(long index) {
+        int cells = width * height;
+        if (cells > BitboardState.MAX_CELLS) {
+            throw new IllegalArgumentException("Bitboard supports at most " + BitboardState.MAX_CELLS + " cells");
+        }
+        checkIndex(index);
+        MappedByteBuffer segment = segments[(int) (index / segmentLayouts)];
+        int at = (int) (index % segmentLayouts) * recordBytes;
+
+        long fwLo = 0, fwHi = 0, vLo = 0, vHi = 0, hLo = 0, hHi = 0, dLo = 0, dHi = 0;
+        int player = -1;
+        int packed = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if ((cell & 1) == 0) packed = segment.get(at++);
+            int type = (cell & 1) == 0 ? packed & 0xF : (packed >> 4) & 0xF;
+            if (type >= TYPES.length) {
+                throw new IllegalStateException("Layout " + index + " has unknown tile " + type + " at cell " + cell);
+            }
+            long bit = 1L << (cell & 63);
+            boolean hi = cell >= 64;
+            switch (TYPES[type]) {
+                case FIREWALL -> { if (hi) fwHi |= bit; else fwLo |= bit; }
+                case VIRUS -> { if (hi) vHi |= bit; else vLo |= bit; }
+                case START -> {
+                    if (player < 0) player = cell;
+                    if (hi) hHi |= bit; else hLo |= bit;
+                }
+                case HUB -> { if (hi) hHi |= bit; else hLo |= bit; }
+                case DATA -> { if (hi) dHi |= bit; else dLo |= bit; }
+                default -> { }
+            }
+        }
+        if (player < 0) {
+            throw new IllegalStateException("Layout " + index + " has no START");
+        }
+        return new BitboardState(width, height, fwLo, fwHi, vLo, vHi, hLo, hHi, dLo, dHi, player);
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Layout " + index + " of " + count);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package src.sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import src.board.Board;
+
+/**
+ * Streams layouts into a corpus file for {@link BoardCorpus}. Layouts are packed as they
+ * come and go out in 64 KB writes; the count in the header is filled in by close(), so a
+ * file whose writer never closed reads back as empty.
+ *
+ * Run: java src.sim.BoardCorpusWriter FILE COUNT [SEED] [WIDTH HEIGHT]
+ * writes COUNT playable layouts of one seeded Board, i.e. the layouts a game on
+ * Board.fromSeed(WIDTH, HEIGHT, SEED) would see one after another.
+ */
+public class BoardCorpusWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int recordBytes;
+    private final ByteBuffer buffer;
+    private byte[] scratch; // for add(Board)
+    private long count;
+
+    public BoardCorpusWriter(Path path, int width, int height) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Board must be at least 1x1");
+        }
+        this.width = width;
+        this.height = height;
+        this.recordBytes = BoardCorpus.recordBytes(width * height);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1 << 16, recordBytes));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(0);
+        channel.position(BoardCorpus.HEADER_BYTES);
+    }
+
+    /** Appends a layout of TileType ordinals, cell = y * width + x. */
+    public void add(byte[] cells) throws IOException {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Layout has " + cells.length + " cells, corpus has " + width * height);
+        }
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+        BoardCorpus.pack(cells, buffer);
+        count++;
+    }
+
+    /** Appends the board's current layout. */
+    public void add(Board board) throws IOException {
+        if (board.getWidth() != width || board.getHeight() != height) {
+            throw new IllegalArgumentException("Board is " + board.getWidth() + "x" + board.getHeight()
+                    + ", corpus is " + width + "x" + height);
+        }
+        if (scratch == null) {
+            scratch = new byte[width * height];
+        }
+        board.copyLayout(scratch);
+        add(scratch);
+    }
+
+    public long getCount() { return count; }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            writeHeader(count);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeHeader(long layouts) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BoardCorpus.HEADER_BYTES);
+        header.putInt(BoardCorpus.MAGIC);
+        header.putShort(BoardCorpus.VERSION);
+        header.putShort((short) BoardCorpus.BITS_PER_TILE);
+        header.putInt(width);
+        header.putInt(height);
+        header.putLong(layouts);
+        header.clear();
+        int at = 0;
+        while (header.hasRemaining()) {
+            at += channel.write(header, at);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3 && args.length != 5) {
+            System.err.println("Usage: java src.sim.BoardCorpusWriter FILE COUNT [SEED] [WIDTH HEIGHT]");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        long layouts = Long.parseLong(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int width = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int height = args.length > 3 ? Integer.parseInt(args[4]) : 8;
+
+        long start = System.nanoTime();
+        Board board = Board.fromSeed(width, height, seed);
+        try (BoardCorpusWriter writer = new BoardCorpusWriter(path, width, height)) {
+            for (long i = 0; i < layouts; i++) {
+                if (i > 0) board.generateNewLayout();
+                writer.add(board);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d layouts of %dx%d written to %s in %.2f s (%.0f layouts/s)%n",
+                layouts, width, height, path, seconds, layouts / seconds);
+    }
+}
@@ -0,0 +1,94 @@
+package src.sim;
+
+import src.cpu.CpuStrategy;
+import src.cpu.GreedyStrategy;
+import src.cpu.MctsStrategy;
+import src.movement.BitboardState;
+
+/**
+ * CPU engine with its settings, written as "strategy:key=value,key=value".
+ * Examples: "greedy", "greedy:depth=6,cluster=20,hub=5", "mcts:playouts=5000,budget=50".
+ *
+ * greedy keys: depth, cluster, hub, endgame, budget (ms)
+ * mcts keys:   playouts, budget (ms)
+ */
+public class EngineSpec {
+
+    private final String text;
+    private final String strategy;
+    private final String[] keys;
+    private final String[] values;
+
+    private EngineSpec(String text, String strategy, String[] keys, String[] values) {
+        this.text = text;
+        this.strategy = strategy;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public static EngineSpec parse(String text) {
+        int colon = text.indexOf(':');
+        String strategy = (colon < 0 ? text : text.substring(0, colon)).toLowerCase();
+        if (!strategy.equals("greedy") && !strategy.equals("mcts")) {
+            throw new IllegalArgumentException("Unknown CPU strategy: " + strategy);
+        }
+
+        String[] pairs = colon < 0 || colon == text.length() - 1
+                ? new String[0] : text.substring(colon + 1).split(",");
+        String[] keys = new String[pairs.length];
+        String[] values = new String[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            int eq = pairs[i].indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value in engine spec: " + pairs[i]);
+            }
+            keys[i] = pairs[i].substring(0, eq).trim().toLowerCase();
+            values[i] = pairs[i].substring(eq + 1).trim();
+        }
+
+        EngineSpec spec = new EngineSpec(text, strategy, keys, values);
+        spec.create(0); // reject unknown keys and bad numbers up front, not inside a worker
+        return spec;
+    }
+
+    /** Largest board the engine can play, in cells: MCTS runs on the slide table only. */
+    public int maxCells() {
+        return strategy.equals("mcts") ? BitboardState.MAX_CELLS : Integer.MAX_VALUE;
+    }
+
+    /** A new, quiet strategy with these settings. */
+    public CpuStrategy create(long seed) {
+        CpuStrategy result;
+        if (strategy.equals("greedy")) {
+            GreedyStrategy greedy = new GreedyStrategy(seed);
+            for (int i = 0; i < keys.length; i++) {
+                switch (keys[i]) {
+                    case "depth" -> greedy.setLookaheadDepth(Integer.parseInt(values[i]));
+                    case "cluster" -> greedy.setClusterPenaltyWeight(Double.parseDouble(values[i]));
+                    case "hub" -> greedy.setHubBonus(Double.parseDouble(values[i]));
+                    case "endgame" -> greedy.setEndgameThreshold(Integer.parseInt(values[i]));
+                    case "budget" -> greedy.setTimeBudgetMillis(Long.parseLong(values[i]));
+                    default -> throw new IllegalArgumentException("Unknown greedy setting: " + keys[i]);
+                }
+            }
+            result = greedy;
+        } else {
+            MctsStrategy mcts = new MctsStrategy(seed);
+            for (int i = 0; i < keys.length; i++) {
+                switch (keys[i]) {
+                    case "playouts" -> mcts.setPlayouts(Integer.parseInt(values[i]));
+                    case "budget" -> mcts.setTimeBudgetMillis(Long.parseLong(values[i]));
+                    default -> throw new IllegalArgumentException("Unknown mcts setting: " + keys[i]);
+                }
+            }
+            result = mcts;
+        }
+        result.setVerbose(false);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
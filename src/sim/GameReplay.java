@@ -0,0 +1,164 @@
+package src.sim;
+
+import java.nio.ByteBuffer;
+
+import src.board.Board;
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.graph.GraphNode;
+import src.movement.Direction;
+
+/**
+ * One recorded game that can be put at any hop. A seek starts from the nearest keyframe
+ * at or before the hop, or from where the replay already is when that is closer, so it
+ * plays at most K - 1 moves (K the keyframe interval). Jumping to a keyframe changes
+ * only the DATA tiles that differ and the packet; the graph is built once per game.
+ */
+public class GameReplay {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final ReplayReader.Summary summary;
+    private final byte[] layout;
+    private final int[] dataCells; // DATA tiles of the layout, in cell order
+    private final ByteBuffer record;
+    private final int movesAt;
+    private final int keyframesAt;
+    private final int keyframeBytes;
+
+    private final int start; // packet cell at hop 0
+    private final BoardGraph graph;
+    private int hop;
+    private int firstScore;
+    private int secondScore;
+
+    GameReplay(int width, int height, int keyframeInterval, ByteBuffer record) {
+        this.width = width;
+        this.height = height;
+        this.keyframeInterval = keyframeInterval;
+        this.record = record;
+        this.summary = ReplayReader.readSummary(record, 0);
+
+        int cells = width * height;
+        int data = record.getInt(ReplayReader.SUMMARY_BYTES);
+        int layoutAt = ReplayReader.SUMMARY_BYTES + 4;
+        this.layout = new byte[cells];
+        BoardCorpus.unpack(record, layoutAt, layout, cells);
+        this.dataCells = new int[data];
+        int found = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (layout[cell] == TileType.DATA.ordinal() && found < data) {
+                dataCells[found++] = cell;
+            }
+        }
+        this.movesAt = layoutAt + BoardCorpus.recordBytes(cells);
+        this.keyframesAt = movesAt + (summary.hops() * 3 + 7) / 8;
+        this.keyframeBytes = ReplayReader.KEYFRAME_FIXED_BYTES + (data + 7) / 8;
+
+        this.graph = new BoardGraph(Board.fromLayout(width, height, layout));
+        GraphNode packet = graph.getPlayerNode();
+        this.start = packet.getY() * width + packet.getX();
+    }
+
+    public ReplayReader.Summary getSummary() { return summary; }
+    public int getHops() { return summary.hops(); }
+    public int getHop() { return hop; }
+    public int getFirstScore() { return firstScore; }
+    public int getSecondScore() { return secondScore; }
+    /** 0 first, 1 second: sides alternate on every hop, passes included. */
+    public int getSideToMove() { return hop % 2; }
+    /** The game at the current hop. Moves made on it are lost by the next keyframe jump. */
+    public BoardGraph getGraph() { return graph; }
+
+    /** The layout the game started on, as TileType ordinals. */
+    public byte[] getLayout() {
+        return layout.clone();
+    }
+
+    /** Direction stored for hop {@code index} (0-based); blocked at that point means a pass. */
+    public Direction getDirection(int index) {
+        if (index < 0 || index >= summary.hops()) {
+            throw new IndexOutOfBoundsException("Hop " + index + " of " + summary.hops());
+        }
+        int bit = index * 3;
+        int at = movesAt + (bit >> 3);
+        int bits = record.get(at) & 0xFF;
+        if (at + 1 < keyframesAt) {
+            bits |= (record.get(at + 1) & 0xFF) << 8;
+        }
+        return DIRECTIONS[(bits >> (bit & 7)) & 7];
+    }
+
+    /** Puts the game where it was after {@code target} hops (0 = the start). */
+    public void seek(int target) {
+        if (target < 0 || target > summary.hops()) {
+            throw new IndexOutOfBoundsException("Hop " + target + " of " + summary.hops());
+        }
+        int keyframe = target / keyframeInterval;
+        if (target < hop || target - hop > target - keyframe * keyframeInterval) {
+            loadKeyframe(keyframe);
+        }
+        while (hop < target) {
+            int collected = graph.makeMove(getDirection(hop));
+            if (collected > 0) {
+                if (hop % 2 == 0) firstScore += collected; else secondScore += collected;
+            }
+            hop++;
+        }
+    }
+
+    // Keyframe k holds the state after k * K hops; keyframe 0 is the layout itself.
+    // The graph is set in place: DATA tiles restored or collected, the packet moved.
+    private void loadKeyframe(int k) {
+        int player = start;
+        int bits = -1;
+        firstScore = 0;
+        secondScore = 0;
+        if (k > 0) {
+            int at = keyframesAt + (k - 1) * keyframeBytes;
+            player = record.getInt(at);
+            firstScore = record.getInt(at + 4);
+            secondScore = record.getInt(at + 8);
+            bits = at + ReplayReader.KEYFRAME_FIXED_BYTES;
+        }
+        for (int i = 0; i < dataCells.length; i++) {
+            boolean present = bits < 0 || (record.get(bits + (i >> 3)) & (1 << (i & 7))) != 0;
+            GraphNode node = graph.getNode(dataCells[i]);
+            boolean isData = node.getType() == TileType.DATA;
+            if (present && !isData) {
+                graph.restoreData(node);
+            } else if (!present && isData) {
+                graph.collectData(node);
+            }
+        }
+        graph.getPlayerNode().setPlayer(false);
+        GraphNode node = graph.getNode(player);
+        node.setPlayer(true);
+        graph.setPlayerNode(node);
+        graph.clearUndo();
+        hop = k * keyframeInterval;
+    }
+
+    /** The board at the current hop in TEST_CASES.md notation, '@' marking the packet. */
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                GraphNode node = graph.getNode(y * width + x);
+                char c = switch (node.getType()) {
+                    case FIREWALL -> '#';
+                    case DATA -> 'D';
+                    case VIRUS -> 'V';
+                    case HUB, START -> 'H';
+                    default -> '.';
+                };
+                out.append(node == graph.getPlayerNode() ? '@' : c);
+                out.append(x + 1 < width ? ' ' : '\n');
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package src.sim;
+
+import src.Game;
+import src.movement.Direction;
+import src.player.Player;
+
+/**
+ * Game loop without Swing: asks each Player for its move in turn and applies it to a
+ * Game until the game is over. No AWT class is loaded, so it runs on headless machines.
+ */
+public class HeadlessGame {
+
+    // A player that keeps choosing blocked moves loses its turn after this many tries
+    private static final int MAX_BLOCKED_TRIES = 8;
+
+    private HeadlessGame() {}
+
+    /**
+     * Plays the game's current layout to the end. {@code first} takes the side that moves
+     * first (Game's human side), {@code second} the other one.
+     */
+    public static Result play(Game game, Player first, Player second) {
+        int blocked = 0;
+        while (!game.isGameOver()) {
+            int side = game.getCurrentPlayer();
+            Player player = side == 0 ? first : second;
+            Direction dir = player.getMove(game.getGraph(), game.getMaxHops() - game.getHops(), null);
+
+            if (dir == null) {
+                game.passTurn();
+                blocked = 0;
+                continue;
+            }
+
+            game.doMove(dir);
+            if (!game.isGameOver() && game.getCurrentPlayer() == side) {
+                // Firewall: same side again
+                if (++blocked >= MAX_BLOCKED_TRIES) {
+                    game.passTurn();
+                    blocked = 0;
+                }
+            } else {
+                blocked = 0;
+            }
+        }
+        return new Result(game.getWinner(), game.getHumanScore(), game.getCpuScore(),
+                game.getHops(), game.getRemainingData());
+    }
+
+    /** winner: 0 first, 1 second, -1 tie. */
+    public record Result(int winner, int firstScore, int secondScore, int hops, int dataLeft) { }
+}
@@ -0,0 +1,91 @@
+package src.sim;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import src.Game;
+import src.board.Board;
+import src.board.BoardRandomizer;
+import src.player.CPUPlayer;
+
+/**
+ * Command-line runner for CPU vs CPU games on seeded boards, with no window.
+ * The same seed and options replay the same games. --replay appends every game to a
+ * replay log, tagged with its number.
+ *
+ * Run: java src.sim.HeadlessRunner [--games=N] [--seed=S] [--first=greedy|mcts]
+ *                                  [--second=greedy|mcts] [--verbose] [--replay=FILE]
+ */
+public class HeadlessRunner {
+
+    public static void main(String[] args) throws IOException {
+        int games = 100;
+        long seed = 1;
+        String first = "greedy";
+        String second = "greedy";
+        boolean verbose = false;
+        Path replayPath = null;
+
+        for (String arg : args) {
+            if (arg.startsWith("--games=")) games = Integer.parseInt(arg.substring("--games=".length()));
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            else if (arg.startsWith("--first=")) first = arg.substring("--first=".length());
+            else if (arg.startsWith("--second=")) second = arg.substring("--second=".length());
+            else if (arg.equals("--verbose")) verbose = true;
+            else if (arg.startsWith("--replay=")) replayPath = Path.of(arg.substring("--replay=".length()));
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        Random random = new Random(seed);
+        CPUPlayer firstPlayer = new CPUPlayer(CPUPlayer.createStrategy(first, random.nextLong()));
+        CPUPlayer secondPlayer = new CPUPlayer(CPUPlayer.createStrategy(second, random.nextLong()));
+        firstPlayer.setVerbose(verbose);
+        secondPlayer.setVerbose(verbose);
+        Game game = new Game(new Board(10, 8, new BoardRandomizer(random.nextLong())), first, false);
+        ReplayWriter replay = replayPath == null ? null : new ReplayWriter(replayPath, 10, 8);
+        ReplayRecorder recorder = replay == null ? null : new ReplayRecorder(replay);
+        game.setReplayRecorder(recorder);
+
+        int firstWins = 0, secondWins = 0, ties = 0;
+        long firstData = 0, secondData = 0, hops = 0;
+
+        System.out.printf("games=%d seed=%d first=%s second=%s%n", games, seed, first, second);
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            if (i > 0) {
+                game.resetGame();
+                firstPlayer.getStrategy().clear();
+                secondPlayer.getStrategy().clear();
+            }
+            if (recorder != null) {
+                recorder.setTag(i);
+            }
+
+            HeadlessGame.Result result = HeadlessGame.play(game, firstPlayer, secondPlayer);
+            switch (result.winner()) {
+                case 0 -> firstWins++;
+                case 1 -> secondWins++;
+                default -> ties++;
+            }
+            firstData += result.firstScore();
+            secondData += result.secondScore();
+            hops += result.hops();
+
+            if (verbose) {
+                System.out.printf("game %d: %d-%d in %d hops, winner %s%n", i + 1,
+                        result.firstScore(), result.secondScore(), result.hops(),
+                        result.winner() < 0 ? "none" : result.winner() == 0 ? first : second);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (replay != null) {
+            replay.close();
+        }
+
+        System.out.printf("first wins %d | ties %d | second wins %d%n", firstWins, ties, secondWins);
+        System.out.printf("avg data %.2f - %.2f | avg hops %.1f%n",
+                (double) firstData / games, (double) secondData / games, (double) hops / games);
+        System.out.printf("%.2f games/s (%d games in %.2f s)%n", games / seconds, games, seconds);
+    }
+}
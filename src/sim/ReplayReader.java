@@ -0,0 +1,232 @@
+package src.sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reads a replay log written by ReplayWriter: a summary of every game without decoding
+ * it, and any game as a GameReplay that can seek to any hop.
+ *
+ * File layout (big-endian):
+ *   header, 16 bytes: magic "PDRL", version, keyframe interval K, width, height
+ *   one record per game:
+ *     length of the rest (int)
+ *     summary: tag (long), winner (byte, -1 tie), first and second score, hops (ints)
+ *     DATA tiles in the layout (int)
+ *     layout: 4 bits per tile, as in BoardCorpus
+ *     moves: a 3-bit Direction code per hop, packed from the lowest bit up
+ *     a keyframe after every K hops: packet cell, first and second score (ints), then
+ *       one bit per DATA tile of the layout, in cell order, set while it is uncollected
+ * A pass is stored as a direction that is blocked where the packet stands. A record cut
+ * short at the end of the file (a crash while appending) is ignored.
+ */
+public class ReplayReader implements Closeable {
+
+    static final int MAGIC = 0x5044524C; // "PDRL"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int SUMMARY_BYTES = 21;
+    static final int KEYFRAME_FIXED_BYTES = 12;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final long[] offsets; // of each record's length field
+    private final int count;
+
+    private ReplayReader(Path path, FileChannel channel, int[] header, long[] offsets, int count) {
+        this.path = path;
+        this.channel = channel;
+        this.width = header[0];
+        this.height = header[1];
+        this.keyframeInterval = header[2];
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    /** Whole games and where they start; a summary for each is read only when asked. */
+    public static ReplayReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            int[] header = readHeader(channel, path);
+            long[][] offsets = {new long[1024]};
+            int[] count = {0};
+            walk(channel, path, 0, (at, window) -> {
+                if (count[0] == offsets[0].length) {
+                    offsets[0] = Arrays.copyOf(offsets[0], count[0] * 2);
+                }
+                offsets[0][count[0]++] = at;
+            });
+            return new ReplayReader(path, channel, header, offsets[0], count[0]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Streams the summary of every game in file order, decoding nothing else. */
+    public static void scan(Path path, Consumer<Summary> visit) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readHeader(channel, path);
+            walk(channel, path, SUMMARY_BYTES, (at, window) -> visit.accept(readSummary(window, window.position())));
+        }
+    }
+
+    public int size() { return count; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getKeyframeInterval() { return keyframeInterval; }
+
+    public Summary summary(int game) throws IOException {
+        ByteBuffer bytes = read(offsets[checkGame(game)] + 4, SUMMARY_BYTES);
+        return readSummary(bytes, 0);
+    }
+
+    /** Game {@code game}, loaded whole and positioned at hop 0. */
+    public GameReplay game(int game) throws IOException {
+        long at = offsets[checkGame(game)];
+        int length = read(at, 4).getInt(0);
+        return new GameReplay(width, height, keyframeInterval, read(at + 4, length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** winner: 0 first, 1 second, -1 tie; tag as set on the ReplayRecorder. */
+    public record Summary(long tag, int winner, int firstScore, int secondScore, int hops) { }
+
+    private int checkGame(int game) {
+        if (game < 0 || game >= count) {
+            throw new IndexOutOfBoundsException("Game " + game + " of " + count);
+        }
+        return game;
+    }
+
+    private ByteBuffer read(long at, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, at + bytes.position()) < 0) {
+                throw new IOException(path + " ends inside a record");
+            }
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    static Summary readSummary(ByteBuffer bytes, int at) {
+        return new Summary(bytes.getLong(at), bytes.get(at + 8), bytes.getInt(at + 9),
+                bytes.getInt(at + 13), bytes.getInt(at + 17));
+    }
+
+    /** width, height and keyframe interval, after checking magic and version. */
+    static int[] readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException(path + " is not a replay log");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a replay log");
+        }
+        if (header.getShort(4) != VERSION) {
+            throw new IOException(path + " has unsupported replay version " + header.getShort(4));
+        }
+        int[] result = {header.getInt(8), header.getInt(12), header.getShort(6)};
+        if (result[0] < 1 || result[1] < 1 || result[2] < 1) {
+            throw new IOException(path + " has a corrupt header");
+        }
+        return result;
+    }
+
+    /** File offset just past the last whole record. */
+    static long endOfLastRecord(FileChannel channel) throws IOException {
+        long[] end = {HEADER_BYTES};
+        walk(channel, null, 0, (at, window) -> end[0] = at + 4 + window.getInt(window.position() - 4));
+        return end[0];
+    }
+
+    interface RecordVisitor {
+        /** Called with the window positioned just past the length field. */
+        void visit(long at, ByteBuffer window);
+    }
+
+    // Jumps from length field to length field through a 64 KB window, so a scan costs one
+    // read per window rather than one per game. peek bytes after the length are in the window.
+    private static void walk(FileChannel channel, Path path, int peek, RecordVisitor visitor)
+            throws IOException {
+        long size = channel.size();
+        ByteBuffer window = ByteBuffer.allocate(1 << 16);
+        long windowStart = 0;
+        int windowLength = 0;
+        long at = HEADER_BYTES;
+        while (at + 4 <= size) {
+            if (at + 4 + peek > windowStart + windowLength) {
+                window.clear();
+                windowStart = at;
+                while (window.hasRemaining() && windowStart + window.position() < size) {
+                    channel.read(window, windowStart + window.position());
+                }
+                windowLength = window.position();
+            }
+            int inWindow = (int) (at - windowStart);
+            int length = window.getInt(inWindow);
+            if (length < SUMMARY_BYTES + 4) {
+                throw new IOException((path == null ? "replay log" : path) + " has a corrupt record at " + at);
+            }
+            if (at + 4 + length > size) {
+                break; // cut short while appending
+            }
+            window.position(inWindow + 4);
+            visitor.visit(at, window);
+            at += 4 + length;
+        }
+    }
+
+    // Usage: java src.sim.ReplayReader FILE            summary of all games
+    //        java src.sim.ReplayReader FILE GAME HOP   the board of one game after HOP hops
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("Usage: java src.sim.ReplayReader FILE [GAME HOP]");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        if (args.length == 1) {
+            long start = System.nanoTime();
+            long[] totals = new long[6]; // games, first wins, second wins, ties, hops, data
+            scan(path, s -> {
+                totals[0]++;
+                totals[s.winner() < 0 ? 3 : 1 + s.winner()]++;
+                totals[4] += s.hops();
+                totals[5] += s.firstScore() + s.secondScore();
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long games = Math.max(1, totals[0]);
+            System.out.printf("%d games | first wins %d | ties %d | second wins %d%n",
+                    totals[0], totals[1], totals[3], totals[2]);
+            System.out.printf("avg hops %.1f | avg data collected %.2f | scanned in %.3f s%n",
+                    (double) totals[4] / games, (double) totals[5] / games, seconds);
+            return;
+        }
+
+        try (ReplayReader reader = open(path)) {
+            GameReplay replay = reader.game(Integer.parseInt(args[1]));
+            replay.seek(Integer.parseInt(args[2]));
+            Summary s = replay.getSummary();
+            System.out.printf("game %s (tag %d): hop %d of %d | score %d - %d | side %d to move%n",
+                    args[1], s.tag(), replay.getHop(), s.hops(),
+                    replay.getFirstScore(), replay.getSecondScore(), replay.getSideToMove());
+            System.out.print(replay.render());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package src.sim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import src.board.Board;
+import src.board.TileType;
+import src.graph.BoardGraph;
+import src.graph.GraphNode;
+import src.movement.Direction;
+
+/**
+ * Records the games of one Game for a ReplayWriter; see Game.setReplayRecorder.
+ * A game is kept here until it ends and then appended as one record, so the log never
+ * holds half a game. A game abandoned before its end (a new layout started) is dropped.
+ * Each Game needs its own recorder; recorders can share a writer.
+ */
+public class ReplayRecorder {
+
+    private final ReplayWriter writer;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final byte[] layout;
+
+    private int[] dataCells = new int[16];
+    private int dataCount;
+    private byte[] moves = new byte[32];     // 3-bit Direction codes
+    private byte[] keyframes = new byte[64];
+    private int keyframeEnd;
+    private int hops;
+    private int firstScore;
+    private int secondScore;
+    private boolean recording;
+    private long tag;
+
+    public ReplayRecorder(ReplayWriter writer) {
+        this.writer = writer;
+        this.width = writer.getWidth();
+        this.height = writer.getHeight();
+        this.keyframeInterval = writer.getKeyframeInterval();
+        this.layout = new byte[width * height];
+    }
+
+    /** Caller's label for the next game written, e.g. a game number; kept until changed. */
+    public void setTag(long tag) {
+        this.tag = tag;
+    }
+
+    /** A new game on the board's current layout; drops the game before it if it never ended. */
+    public void start(Board board) {
+        if (board.getWidth() != width || board.getHeight() != height) {
+            throw new IllegalArgumentException("Board is " + board.getWidth() + "x" + board.getHeight()
+                    + ", replay log is " + width + "x" + height);
+        }
+        board.copyLayout(layout);
+        dataCount = 0;
+        for (int cell = 0; cell < layout.length; cell++) {
+            if (layout[cell] == TileType.DATA.ordinal()) {
+                if (dataCount == dataCells.length) {
+                    dataCells = Arrays.copyOf(dataCells, dataCount * 2);
+                }
+                dataCells[dataCount++] = cell;
+            }
+        }
+        Arrays.fill(moves, (byte) 0);
+        keyframeEnd = 0;
+        hops = 0;
+        firstScore = 0;
+        secondScore = 0;
+        recording = true;
+    }
+
+    /** A hop that moved the packet in {@code dir}; {@code graph} is the state after it. */
+    public void move(Direction dir, int collected, BoardGraph graph) {
+        if (!recording) return;
+        if (hops % 2 == 0) firstScore += collected; else secondScore += collected;
+        hop(dir.ordinal(), graph);
+    }
+
+    /** A hop where the side to move passed; stored as a direction blocked from the packet. */
+    public void pass(BoardGraph graph) {
+        if (!recording) return;
+        GraphNode at = graph.getPlayerNode();
+        for (Direction d : Direction.ALL) {
+            GraphNode next = at.getNeighbor(d);
+            if (next == null || next.getType() == TileType.FIREWALL) {
+                hop(d.ordinal(), graph);
+                return;
+            }
+        }
+        throw new IllegalStateException("A pass with every direction open cannot be recorded");
+    }
+
+    /** The game is over: appends it to the writer. winner: 0 first, 1 second, -1 tie. */
+    public void end(int winner) {
+        if (!recording) return;
+        recording = false;
+
+        int cells = width * height;
+        int moveBytes = (hops * 3 + 7) / 8;
+        int length = ReplayReader.SUMMARY_BYTES + 4 + BoardCorpus.recordBytes(cells) + moveBytes + keyframeEnd;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length);
+        record.putLong(tag);
+        record.put((byte) winner);
+        record.putInt(firstScore);
+        record.putInt(secondScore);
+        record.putInt(hops);
+        record.putInt(dataCount);
+        BoardCorpus.pack(layout, record);
+        record.put(moves, 0, moveBytes);
+        record.put(keyframes, 0, keyframeEnd);
+        record.flip();
+        try {
+            writer.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void hop(int code, BoardGraph graph) {
+        int bit = hops * 3;
+        if ((bit >> 3) + 1 >= moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        int shifted = code << (bit & 7);
+        moves[bit >> 3] |= (byte) shifted;
+        moves[(bit >> 3) + 1] |= (byte) (shifted >> 8);
+        hops++;
+        if (hops % keyframeInterval == 0) {
+            keyframe(graph);
+        }
+    }
+
+    private void keyframe(BoardGraph graph) {
+        int size = ReplayReader.KEYFRAME_FIXED_BYTES + (dataCount + 7) / 8;
+        if (keyframeEnd + size > keyframes.length) {
+            keyframes = Arrays.copyOf(keyframes, Math.max(keyframes.length * 2, keyframeEnd + size));
+        }
+        GraphNode player = graph.getPlayerNode();
+        ByteBuffer out = ByteBuffer.wrap(keyframes, keyframeEnd, size);
+        out.putInt(player.getY() * width + player.getX());
+        out.putInt(firstScore);
+        out.putInt(secondScore);
+        Arrays.fill(keyframes, out.position(), keyframeEnd + size, (byte) 0);
+        for (int i = 0; i < dataCount; i++) {
+            if (graph.getNode(dataCells[i]).getType() == TileType.DATA) {
+                keyframes[out.position() + (i >> 3)] |= (byte) (1 << (i & 7));
+            }
+        }
+        keyframeEnd += size;
+    }
+}
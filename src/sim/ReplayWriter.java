@@ -0,0 +1,110 @@
+package src.sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only replay log file; see ReplayReader for the format. Games arrive whole from
+ * ReplayRecorders, one record each, and go out in 64 KB writes. Recorders on different
+ * threads can share one writer. Opening an existing log appends to it, keeping its
+ * keyframe interval.
+ */
+public class ReplayWriter implements Closeable {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private long games;
+
+    public ReplayWriter(Path path, int width, int height) throws IOException {
+        this(path, width, height, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public ReplayWriter(Path path, int width, int height, int keyframeInterval) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Board must be at least 1x1");
+        }
+        if (keyframeInterval < 1 || keyframeInterval > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Keyframe interval must be between 1 and " + Short.MAX_VALUE);
+        }
+        this.width = width;
+        this.height = height;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(ReplayReader.HEADER_BYTES);
+                header.putInt(ReplayReader.MAGIC);
+                header.putShort(ReplayReader.VERSION);
+                header.putShort((short) keyframeInterval);
+                header.putInt(width);
+                header.putInt(height);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                this.keyframeInterval = keyframeInterval;
+            } else {
+                int[] existing = ReplayReader.readHeader(channel, path);
+                if (existing[0] != width || existing[1] != height) {
+                    throw new IOException(path + " holds " + existing[0] + "x" + existing[1]
+                            + " games, not " + width + "x" + height);
+                }
+                this.keyframeInterval = existing[2];
+                // A record cut short by a crash is dropped, so new games follow the last whole one
+                channel.truncate(ReplayReader.endOfLastRecord(channel));
+                channel.position(channel.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getKeyframeInterval() { return keyframeInterval; }
+
+    /** Games appended through this writer so far. */
+    public synchronized long getGameCount() { return games; }
+
+    /** Appends one finished game record, from its length field to its last keyframe. */
+    synchronized void append(ByteBuffer record) throws IOException {
+        if (record.remaining() > buffer.remaining()) {
+            flush();
+        }
+        if (record.remaining() > buffer.capacity()) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } else {
+            buffer.put(record);
+        }
+        games++;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,316 @@
+package src.sim;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import src.Game;
+import src.board.Board;
+import src.graph.BoardGraph;
+import src.movement.Direction;
+import src.player.CPUPlayer;
+import src.player.Player;
+
+/**
+ * Self-play tournament between two engine settings on all cores.
+ * Every layout is played twice with the sides swapped, so neither engine profits from
+ * moving first or from a lucky board. Layouts and engine seeds depend only on --seed and
+ * the pair number, so results do not change with --threads. Each worker owns its Game,
+ * Board, BoardGraph and engines; nothing is shared while games run.
+ * With --corpus, pair p plays layout p (wrapping around) of a BoardCorpus file instead
+ * of a generated one, so different runs and machines can share the exact same boards.
+ * With --replay, every game is appended to a replay log, tagged with its game number
+ * (2p: A moved first on layout p, 2p + 1: B did).
+ *
+ * Run: java src.sim.Tournament [--pairs=N] [--seed=S] [--threads=T]
+ *                              [--a=SPEC] [--b=SPEC] [--corpus=FILE] [--replay=FILE]
+ * SPEC is an EngineSpec, e.g. greedy:depth=6,cluster=20 or mcts:playouts=5000
+ */
+public class Tournament {
+
+    private static final double Z95 = 1.96;
+
+    public static void main(String[] args) throws Exception {
+        int pairs = 1000;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        EngineSpec a = EngineSpec.parse("greedy");
+        EngineSpec b = EngineSpec.parse("greedy");
+        BoardCorpus corpus = null;
+        Path replayPath = null;
+
+        for (String arg : args) {
+            if (arg.startsWith("--pairs=")) pairs = Integer.parseInt(arg.substring("--pairs=".length()));
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring("--threads=".length()));
+            else if (arg.startsWith("--a=")) a = EngineSpec.parse(arg.substring("--a=".length()));
+            else if (arg.startsWith("--b=")) b = EngineSpec.parse(arg.substring("--b=".length()));
+            else if (arg.startsWith("--corpus=")) corpus = BoardCorpus.open(Path.of(arg.substring("--corpus=".length())));
+            else if (arg.startsWith("--replay=")) replayPath = Path.of(arg.substring("--replay=".length()));
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+        if (pairs < 1 || threads < 1) {
+            throw new IllegalArgumentException("pairs and threads must be at least 1");
+        }
+        if (corpus != null && corpus.size() == 0) {
+            throw new IllegalArgumentException("Corpus holds no layouts");
+        }
+        if (corpus != null) {
+            long cells = (long) corpus.getWidth() * corpus.getHeight();
+            for (EngineSpec spec : new EngineSpec[] {a, b}) {
+                if (cells > spec.maxCells()) {
+                    throw new IllegalArgumentException(spec + " plays boards of at most " + spec.maxCells()
+                            + " cells; the corpus is " + corpus.getWidth() + "x" + corpus.getHeight());
+                }
+            }
+        }
+        threads = Math.min(threads, pairs);
+
+        System.out.printf("A=%s B=%s pairs=%d seed=%d threads=%d%n", a, b, pairs, seed, threads);
+        if (corpus != null) {
+            System.out.printf("layouts from corpus: %d of %dx%d%n",
+                    corpus.size(), corpus.getWidth(), corpus.getHeight());
+        }
+
+        // Game 2p: A moves first on layout p; game 2p + 1: B moves first on the same layout
+        int[] marginA = new int[pairs * 2];
+        int[] winner = new int[pairs * 2]; // 0 A, 1 B, -1 tie
+
+        ReplayWriter replay = replayPath == null ? null : corpus == null
+                ? new ReplayWriter(replayPath, 10, 8)
+                : new ReplayWriter(replayPath, corpus.getWidth(), corpus.getHeight());
+
+        // Daemon threads, and a worker that throws stops the run: the other workers are
+        // abandoned and the replay log is closed, so the JVM exits with the error
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "tournament");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Worker> workers = new ArrayList<>();
+        double seconds;
+        try {
+            List<Future<Worker>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(a, b, seed, corpus, replay, t, threads, pairs, marginA, winner);
+                futures.add(pool.submit(worker::run));
+            }
+            for (Future<Worker> f : futures) {
+                workers.add(f.get());
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+        } finally {
+            pool.shutdownNow();
+            if (replay != null) {
+                replay.close();
+            }
+        }
+        if (replay != null) {
+            System.out.printf("%d games appended to %s%n", replay.getGameCount(), replayPath);
+        }
+
+        report(pairs, marginA, winner, workers, seconds);
+    }
+
+    private static void report(int pairs, int[] marginA, int[] winner, List<Worker> workers,
+                               double seconds) {
+        int games = pairs * 2;
+        int wins = 0, draws = 0, losses = 0, firstWins = 0;
+        double[] points = new double[games];
+        double[] margins = new double[games];
+        double[] paired = new double[pairs];
+        for (int g = 0; g < games; g++) {
+            switch (winner[g]) {
+                case 0 -> { wins++; points[g] = 1.0; }
+                case 1 -> losses++;
+                default -> { draws++; points[g] = 0.5; }
+            }
+            // A moves first in even games
+            boolean firstWon = winner[g] == (g % 2 == 0 ? 0 : 1);
+            if (firstWon) firstWins++;
+            margins[g] = marginA[g];
+            paired[g / 2] += marginA[g] / 2.0;
+        }
+
+        double score = mean(points);
+        double scoreHalf = Z95 * stdError(points);
+        System.out.printf("A wins %d | draws %d | B wins %d (%d games)%n", wins, draws, losses, games);
+        System.out.printf("A score %.1f%% +/- %.1f%% | Elo %s [%s, %s]%n",
+                100 * score, 100 * scoreHalf,
+                elo(score), elo(score - scoreHalf), elo(score + scoreHalf));
+        System.out.printf("margin A-B per game %+.2f +/- %.2f | per layout (both sides) %+.2f +/- %.2f%n",
+                mean(margins), Z95 * stdError(margins), mean(paired), Z95 * stdError(paired));
+        System.out.printf("first mover wins %.1f%%%n", 100.0 * firstWins / games);
+
+        long[] thinkA = merge(workers, true);
+        long[] thinkB = merge(workers, false);
+        printThinkTimes("A", thinkA);
+        printThinkTimes("B", thinkB);
+        System.out.printf("%.2f games/s (%d games in %.2f s)%n", games / seconds, games, seconds);
+    }
+
+    private static void printThinkTimes(String label, long[] nanos) {
+        Arrays.sort(nanos);
+        System.out.printf("%s think ms: p50 %.3f | p90 %.3f | p99 %.3f | max %.3f (%d moves)%n", label,
+                percentile(nanos, 50) / 1e6, percentile(nanos, 90) / 1e6,
+                percentile(nanos, 99) / 1e6, percentile(nanos, 100) / 1e6, nanos.length);
+    }
+
+    // Nearest rank on sorted values
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static long[] merge(List<Worker> workers, boolean engineA) {
+        int total = 0;
+        for (Worker w : workers) total += (engineA ? w.timerA : w.timerB).count;
+        long[] all = new long[total];
+        int at = 0;
+        for (Worker w : workers) {
+            TimedPlayer timer = engineA ? w.timerA : w.timerB;
+            System.arraycopy(timer.nanos, 0, all, at, timer.count);
+            at += timer.count;
+        }
+        return all;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    private static double stdError(double[] values) {
+        if (values.length < 2) return 0;
+        double m = mean(values);
+        double sq = 0;
+        for (double v : values) sq += (v - m) * (v - m);
+        return Math.sqrt(sq / (values.length - 1) / values.length);
+    }
+
+    // Elo difference for an expected score; unbounded at 0 and 1
+    private static String elo(double score) {
+        if (score <= 0) return "-inf";
+        if (score >= 1) return "+inf";
+        return String.format("%+.0f", -400 * Math.log10(1 / score - 1));
+    }
+
+    // SplitMix64 finalizer: well-spread seeds from consecutive inputs
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Plays every pair p with p % threads == index. */
+    private static class Worker {
+        private final long seed;
+        private final BoardCorpus corpus; // null: generated layouts
+        private final byte[] layout;
+        private final ReplayRecorder recorder; // null: games not recorded
+        private final int index;
+        private final int stride;
+        private final int pairs;
+        private final int[] marginA;
+        private final int[] winner;
+
+        private final Game game;
+        private final CPUPlayer engineA;
+        private final CPUPlayer engineB;
+        private final TimedPlayer timerA;
+        private final TimedPlayer timerB;
+
+        Worker(EngineSpec a, EngineSpec b, long seed, BoardCorpus corpus, ReplayWriter replay,
+               int index, int stride, int pairs, int[] marginA, int[] winner) {
+            this.seed = seed;
+            this.corpus = corpus;
+            this.index = index;
+            this.stride = stride;
+            this.pairs = pairs;
+            this.marginA = marginA;
+            this.winner = winner;
+
+            Board board = corpus == null ? new Board(10, 8) : new Board(corpus.getWidth(), corpus.getHeight());
+            this.layout = corpus == null ? null : new byte[corpus.getWidth() * corpus.getHeight()];
+            this.game = new Game(board, a.toString(), false);
+            this.recorder = replay == null ? null : new ReplayRecorder(replay);
+            game.setReplayRecorder(recorder);
+            this.engineA = new CPUPlayer(a.create(0));
+            this.engineB = new CPUPlayer(b.create(0));
+            engineA.setVerbose(false);
+            engineB.setVerbose(false);
+            this.timerA = new TimedPlayer(engineA);
+            this.timerB = new TimedPlayer(engineB);
+        }
+
+        Worker run() {
+            for (int p = index; p < pairs; p += stride) {
+                long layoutSeed = mix(seed * 0x9E3779B97F4A7C15L + p);
+                if (corpus == null) {
+                    game.resetGame(layoutSeed);
+                } else {
+                    corpus.readLayout(p % corpus.size(), layout);
+                    game.resetGame(layout);
+                }
+                newGame(layoutSeed, 2L * p);
+                HeadlessGame.Result first = HeadlessGame.play(game, timerA, timerB);
+                marginA[2 * p] = first.firstScore() - first.secondScore();
+                winner[2 * p] = first.winner();
+
+                game.replayLayout();
+                newGame(layoutSeed, 2L * p + 1);
+                HeadlessGame.Result second = HeadlessGame.play(game, timerB, timerA);
+                marginA[2 * p + 1] = second.secondScore() - second.firstScore();
+                winner[2 * p + 1] = second.winner() < 0 ? -1 : 1 - second.winner();
+            }
+            return this;
+        }
+
+        // Same engine state for both games of a pair, whichever thread plays them
+        private void newGame(long layoutSeed, long gameNumber) {
+            if (recorder != null) {
+                recorder.setTag(gameNumber);
+            }
+            engineA.getStrategy().clear();
+            engineB.getStrategy().clear();
+            engineA.getStrategy().setSeed(mix(layoutSeed + 1));
+            engineB.getStrategy().setSeed(mix(layoutSeed + 2));
+        }
+    }
+
+    /** Records how long each move of the wrapped player takes. */
+    private static class TimedPlayer implements Player {
+        private final CPUPlayer player;
+        private long[] nanos = new long[1024];
+        private int count;
+
+        TimedPlayer(CPUPlayer player) {
+            this.player = player;
+        }
+
+        @Override
+        public Direction getMove(BoardGraph graph, Scanner scanner) {
+            return player.getMove(graph, scanner);
+        }
+
+        @Override
+        public Direction getMove(BoardGraph graph, int hopsLeft, Scanner scanner) {
+            long start = System.nanoTime();
+            Direction dir = player.getMove(graph, hopsLeft);
+            long elapsed = System.nanoTime() - start;
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsed;
+            return dir;
+        }
+    }
+}
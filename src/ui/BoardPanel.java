@@ -2,15 +2,14 @@ package src.ui;
 
 import src.Game;
 import src.graph.GraphNode;
-import src.board.TileType;
+import src.world.ChunkedWorld;
 
 import javax.swing.*;
 import java.awt.*;
 
 public class BoardPanel extends JPanel {
+    private static final int WORLD_TILE_SIZE = 36; // a world is shown a window at a time
     private final Game game;
-    private final int gridWidth = 10;
-    private final int gridHeight = 8;
     private Timer animationTimer;
 
     public BoardPanel(Game game) {
@@ -20,7 +19,7 @@ public class BoardPanel extends JPanel {
             BorderFactory.createLineBorder(new Color(80, 80, 80), 4),
             BorderFactory.createEmptyBorder(15, 15, 15, 15)
         ));
-        
+
         // Animation timer for smooth animations
         animationTimer = new Timer(50, e -> repaint());
         animationTimer.start();
@@ -31,33 +30,73 @@ public class BoardPanel extends JPanel {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
+
         // Calculate tile size with padding
         int padding = 20;
         int availableWidth = getWidth() - 2 * padding;
         int availableHeight = getHeight() - 2 * padding;
-        int tileSize = Math.min(availableWidth / gridWidth, availableHeight / gridHeight);
-        
+
+        ChunkedWorld world = game.getWorld();
+        int gridWidth;
+        int gridHeight;
+        int tileSize;
+        if (world != null) {
+            // Only the viewport around the packet is drawn; the rest may not even exist yet
+            tileSize = WORLD_TILE_SIZE;
+            gridWidth = Math.max(1, Math.min(world.getWidth(), availableWidth / tileSize));
+            gridHeight = Math.max(1, Math.min(world.getHeight(), availableHeight / tileSize));
+        } else {
+            gridWidth = game.getGraph().getWidth();
+            gridHeight = game.getGraph().getHeight();
+            tileSize = Math.min(availableWidth / gridWidth, availableHeight / gridHeight);
+        }
+
         // Center the grid
         int offsetX = (getWidth() - gridWidth * tileSize) / 2;
         int offsetY = (getHeight() - gridHeight * tileSize) / 2;
-        
+
         // Draw futuristic grid background
         g2d.setColor(new Color(25, 25, 25));
-        g2d.fillRoundRect(offsetX - 8, offsetY - 8, 
+        g2d.fillRoundRect(offsetX - 8, offsetY - 8,
                          gridWidth * tileSize + 16, gridHeight * tileSize + 16, 15, 15);
-        
+
         // Draw grid glow effect
         g2d.setColor(new Color(0, 150, 200, 30));
         g2d.setStroke(new BasicStroke(2));
-        g2d.drawRoundRect(offsetX - 8, offsetY - 8, 
+        g2d.drawRoundRect(offsetX - 8, offsetY - 8,
                          gridWidth * tileSize + 16, gridHeight * tileSize + 16, 15, 15);
-        
+
         // Draw tiles
+        if (world != null) {
+            paintViewport(g2d, world, gridWidth, gridHeight, offsetX, offsetY, tileSize);
+            return;
+        }
         for (GraphNode node : game.getGraph().getAllNodes()) {
             int x = offsetX + node.getX() * tileSize;
             int y = offsetY + node.getY() * tileSize;
             TileRenderer.render(g2d, node, x, y, tileSize);
         }
     }
-}
\ No newline at end of file
+
+    // The columns x0.. and rows y0.. of the world that fit, centred on the packet where the edges allow
+    private void paintViewport(Graphics2D g2d, ChunkedWorld world, int columns, int rows,
+                               int offsetX, int offsetY, int tileSize) {
+        int px = world.getPlayerX();
+        int py = world.getPlayerY();
+        int x0 = Math.max(0, Math.min(world.getWidth() - columns, px - columns / 2));
+        int y0 = Math.max(0, Math.min(world.getHeight() - rows, py - rows / 2));
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int wx = x0 + col;
+                int wy = y0 + row;
+                TileRenderer.render(g2d, world.getType(wx, wy), wx == px && wy == py,
+                        offsetX + col * tileSize, offsetY + row * tileSize, tileSize);
+            }
+        }
+
+        g2d.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        g2d.setColor(new Color(150, 150, 150));
+        g2d.drawString(String.format("(%d, %d) of %dx%d | %d chunks", px, py,
+                world.getWidth(), world.getHeight(), world.getChunkCount()), offsetX, offsetY - 12);
+    }
+}
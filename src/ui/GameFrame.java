@@ -7,6 +7,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CompletableFuture;
 
 public class GameFrame extends JFrame {
     private final Game game;
@@ -15,6 +16,7 @@ public class GameFrame extends JFrame {
     private final LegendPanel legendPanel;
     private final ControlsPanel controlsPanel;
     private final Timer cpuTimer;
+    private CompletableFuture<Direction> pendingCpuMove;
 
     public GameFrame(Game game) {
         this.game = game;
@@ -89,21 +91,20 @@ public class GameFrame extends JFrame {
 
         add(rightSidebar, BorderLayout.EAST);
 
-        // CPU Timer for delay
+        // CPU Timer for delay; the search itself runs on the engine thread
         cpuTimer = new Timer(1200, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (!game.isGameOver() && !game.isHumanTurn()) {
-                    Direction cpuDir = new CPUPlayer().getMove(game.getGraph(), null);
-                    if (cpuDir != null) {
-                        String message = game.doMove(cpuDir);
-                        if (message != null) {
-                            showStyledMessage(message, "CPU Move");
-                        }
-                    } else {
-                        showStyledMessage("CPU has no valid moves!\nHuman's turn again.", "CPU Stuck");
-                    }
-                    updateUI();
+                if (!game.isGameOver() && !game.isHumanTurn() && pendingCpuMove == null) {
+                    int hopsLeft = game.getMaxHops() - game.getHops();
+                    // A world search takes milliseconds, so it runs right here on the EDT
+                    CompletableFuture<Direction> move = game.getWorld() != null
+                            ? CompletableFuture.completedFuture(
+                                    game.getWorldCpu().getBestDirection(game.getWorld(), hopsLeft))
+                            : cpuPlayer().getMoveAsync(game.getGraph(), hopsLeft);
+                    pendingCpuMove = move;
+                    move.whenComplete((dir, error) ->
+                            SwingUtilities.invokeLater(() -> applyCpuMove(move, dir, error)));
                 }
                 cpuTimer.stop();
             }
@@ -261,14 +262,62 @@ public class GameFrame extends JFrame {
         return button;
     }
 
+    // The game's engine session outlives restarts; Game clears it on a new layout
+    private CPUPlayer cpuPlayer() {
+        return game.getEngine().getCpuPlayer();
+    }
+
+    // Runs on the EDT once the engine answers; results of cancelled searches are dropped
+    private void applyCpuMove(CompletableFuture<Direction> move, Direction cpuDir, Throwable error) {
+        if (move != pendingCpuMove || move.isCancelled()) {
+            return;
+        }
+        pendingCpuMove = null;
+
+        if (error != null) {
+            showStyledMessage("CPU engine failed: " + error.getMessage(), "CPU Error");
+        } else if (cpuDir != null) {
+            String message = game.doMove(cpuDir);
+            if (message != null) {
+                showStyledMessage(message, "CPU Move");
+            }
+        } else {
+            showStyledMessage("CPU has no valid moves!\nHuman's turn again.", "CPU Stuck");
+        }
+        updateUI();
+    }
+
+    private void cancelCpuMove() {
+        cpuTimer.stop();
+        if (pendingCpuMove != null) {
+            pendingCpuMove.cancel(false);
+            pendingCpuMove = null;
+        }
+        if (game.getWorld() == null) {
+            cpuPlayer().cancel();
+        }
+    }
+
     public void updateUI() {
         statsPanel.updateStats(game);
         boardPanel.repaint();
 
         if (game.isGameOver()) {
+            if (game.getWorld() == null) {
+                cpuPlayer().stopPondering();
+            }
             showGameOverDialog();
-        } else if (!game.isHumanTurn()) {
+        } else if (!game.isHumanTurn() && pendingCpuMove == null) {
             cpuTimer.start();
+        } else if (game.isHumanTurn() && game.isPondering()) {
+            cpuPlayer().startPondering(game.getGraph(), game.getMaxHops() - game.getHops());
+        }
+    }
+
+    // Called by KeyHandler once the human's move is on the board
+    public void humanMoved(Direction dir) {
+        if (game.isPondering()) {
+            cpuPlayer().ponderHit(dir);
         }
     }
 
@@ -310,6 +359,7 @@ public class GameFrame extends JFrame {
     }
 
     private void restartGame() {
+        cancelCpuMove();
         game.resetGame();
         updateUI();
         boardPanel.requestFocusInWindow();
@@ -34,6 +34,9 @@ public class KeyHandler extends KeyAdapter {
 
         if (dir != null) {
             String message = game.doMove(dir);
+            if (!game.isHumanTurn() && !game.isGameOver()) {
+                frame.humanMoved(dir);
+            }
             if (message != null) {
                 JOptionPane.showMessageDialog(frame, message, "Info", JOptionPane.INFORMATION_MESSAGE);
             }
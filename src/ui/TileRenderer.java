@@ -18,6 +18,11 @@ public class TileRenderer {
     private static long animationTime = System.currentTimeMillis();
 
     public static void render(Graphics g, GraphNode node, int x, int y, int size) {
+        render(g, node.getType(), node.hasPlayer(), x, y, size);
+    }
+
+    /** A tile given by its type, for boards that have no GraphNodes, e.g. a ChunkedWorld. */
+    public static void render(Graphics g, TileType type, boolean player, int x, int y, int size) {
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
@@ -28,10 +33,10 @@ public class TileRenderer {
         int innerY = y + padding;
         
         // Draw base tile with rounded corners
-        drawBaseTile(g2d, innerX, innerY, innerSize, node.getType());
+        drawBaseTile(g2d, innerX, innerY, innerSize, type);
         
         // Draw custom graphics based on tile type
-        switch (node.getType()) {
+        switch (type) {
             case DATA -> drawDataPacket(g2d, innerX, innerY, innerSize);
             case VIRUS -> drawVirus(g2d, innerX, innerY, innerSize);
             case FIREWALL -> drawFirewall(g2d, innerX, innerY, innerSize);
@@ -40,7 +45,7 @@ public class TileRenderer {
         }
         
         // Draw player overlay with glow effect
-        if (node.hasPlayer()) {
+        if (player) {
             drawPlayer(g2d, innerX, innerY, innerSize);
         }
     }
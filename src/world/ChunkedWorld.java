@@ -0,0 +1,300 @@
+package src.world;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import src.board.BoardRandomizer;
+import src.board.TileType;
+import src.movement.Direction;
+import src.movement.MoveResult;
+
+/**
+ * A board too large for Board and BoardGraph, e.g. 1000x1000 and up. Tiles are bytes in
+ * 64x64 chunks; a chunk is drawn by BoardRandomizer.randomizeRegion from its own seed the
+ * first time anything reads it, so only the part of the world that was looked at exists.
+ * START (a HUB, as in BoardGraph) is the top-left cell and the goal HUB the bottom-right
+ * one, each with the same clearings Board gives them. Chunks are never dropped, because
+ * collected DATA has to stay collected.
+ *
+ * Slides follow BoardGraph.makeMove and run across chunk borders. The DATA count is exact
+ * from the start: a freshly drawn region always holds BoardRandomizer.regionData tiles, and
+ * the chunks the fixed cells land in (up to four) are drawn up front.
+ *
+ * Reads, moves and resets belong to one thread at a time, e.g. the Swing thread.
+ */
+public class ChunkedWorld {
+
+    public static final int CHUNK_BITS = 6;
+    public static final int CHUNK = 1 << CHUNK_BITS; // cells per chunk side
+    private static final int MASK = CHUNK - 1;
+
+    private static final byte BLANK = (byte) TileType.BLANK.ordinal();
+    private static final byte FIREWALL = (byte) TileType.FIREWALL.ordinal();
+    private static final byte DATA = (byte) TileType.DATA.ordinal();
+    private static final byte VIRUS = (byte) TileType.VIRUS.ordinal();
+    private static final byte HUB = (byte) TileType.HUB.ordinal();
+    private static final TileType[] TYPES = TileType.values();
+
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private long seed;
+    private final ConcurrentHashMap<Long, byte[]> chunks = new ConcurrentHashMap<>();
+    private long totalData;
+
+    private int playerX;
+    private int playerY;
+    private final Slide moveSlide = new Slide();
+
+    // Undo stack, per move: collected cells, their count, then the previous player cell
+    private long[] undo = new long[64];
+    private int undoTop;
+
+    public ChunkedWorld(int width, int height, long seed) {
+        if (width < 2 || height < 2) {
+            throw new IllegalArgumentException("World must be at least 2x2");
+        }
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + MASK) >> CHUNK_BITS;
+        reset(seed);
+    }
+
+    /** A new world from {@code seed}: every chunk dropped, the packet back on START. */
+    public void reset(long seed) {
+        this.seed = seed;
+        chunks.clear();
+        undoTop = 0;
+        playerX = 0;
+        playerY = 0;
+
+        // Whole chunks, then the narrower ones along the right and bottom edges
+        int fullX = width >> CHUNK_BITS;
+        int fullY = height >> CHUNK_BITS;
+        int restX = width & MASK;
+        int restY = height & MASK;
+        totalData = (long) fullX * fullY * BoardRandomizer.regionData(CHUNK * CHUNK)
+                + (restX == 0 ? 0 : (long) fullY * BoardRandomizer.regionData(restX * CHUNK))
+                + (restY == 0 ? 0 : (long) fullX * BoardRandomizer.regionData(CHUNK * restY))
+                + (restX == 0 || restY == 0 ? 0 : BoardRandomizer.regionData(restX * restY));
+
+        // The fixed cells may cover DATA; drawing their chunks now settles the count. The
+        // goal's clearings fall in a neighbouring chunk when a side is 1 mod CHUNK
+        chunk(0, 0);
+        chunk((width - 1) >> CHUNK_BITS, (height - 1) >> CHUNK_BITS);
+        chunk((width - 2) >> CHUNK_BITS, (height - 1) >> CHUNK_BITS);
+        chunk((width - 1) >> CHUNK_BITS, (height - 2) >> CHUNK_BITS);
+    }
+
+    /** The next world of this one's sequence, as Board.generateNewLayout draws the next layout. */
+    public void generateNewWorld() {
+        reset(mix(seed + 0x9E3779B97F4A7C15L));
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long getSeed() { return seed; }
+    public int getPlayerX() { return playerX; }
+    public int getPlayerY() { return playerY; }
+    /** DATA left anywhere in the world, drawn or not. */
+    public long getTotalData() { return totalData; }
+    /** Chunks drawn so far. */
+    public int getChunkCount() { return chunks.size(); }
+    public long getChunkBytes() { return (long) chunks.size() * CHUNK * CHUNK; }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public TileType getType(int x, int y) {
+        return TYPES[type(x, y)];
+    }
+
+    /** TileType ordinal at (x, y), drawing its chunk if needed. */
+    public byte type(int x, int y) {
+        return chunk(x >> CHUNK_BITS, y >> CHUNK_BITS)[(y & MASK) << CHUNK_BITS | (x & MASK)];
+    }
+
+    /** Where a slide from (x, y) ends and what it collects, changing nothing. */
+    public static class Slide {
+        public int endX;
+        public int endY;
+        public boolean crash;
+        public boolean hub;
+        public int collected;
+        public long[] cells = new long[16]; // y * width + x of each DATA passed
+
+        private void add(long cell) {
+            if (collected == cells.length) {
+                cells = Arrays.copyOf(cells, collected * 2);
+            }
+            cells[collected++] = cell;
+        }
+    }
+
+    /**
+     * Slides from (x, y) towards {@code dir} as makeMove would, without changing anything.
+     * DATA cells listed in the first {@code skipCount} entries of {@code skip} count as
+     * already collected, so a search can play a line of moves on a shared world.
+     * Returns false, leaving {@code out} unspecified, when the first step is blocked.
+     */
+    public boolean slide(int x, int y, Direction dir, long[] skip, int skipCount, Slide out) {
+        int nx = x + dir.dx;
+        int ny = y + dir.dy;
+        if (!inBounds(nx, ny)) {
+            return false;
+        }
+        int cx = nx >> CHUNK_BITS;
+        int cy = ny >> CHUNK_BITS;
+        byte[] cells = chunk(cx, cy);
+        if (cells[(ny & MASK) << CHUNK_BITS | (nx & MASK)] == FIREWALL) {
+            return false;
+        }
+
+        out.collected = 0;
+        out.crash = false;
+        out.hub = false;
+        while (true) {
+            x = nx;
+            y = ny;
+            byte type = cells[(y & MASK) << CHUNK_BITS | (x & MASK)];
+            if (type == DATA) {
+                long cell = (long) y * width + x;
+                if (!contains(skip, skipCount, cell)) {
+                    out.add(cell);
+                }
+            } else if (type == VIRUS) {
+                out.crash = true;
+                break;
+            } else if (type == HUB) {
+                out.hub = true;
+                break;
+            }
+
+            nx = x + dir.dx;
+            ny = y + dir.dy;
+            if (!inBounds(nx, ny)) {
+                break;
+            }
+            if (nx >> CHUNK_BITS != cx || ny >> CHUNK_BITS != cy) {
+                cx = nx >> CHUNK_BITS;
+                cy = ny >> CHUNK_BITS;
+                cells = chunk(cx, cy);
+            }
+            if (cells[(ny & MASK) << CHUNK_BITS | (nx & MASK)] == FIREWALL) {
+                break;
+            }
+        }
+        out.endX = x;
+        out.endY = y;
+        return true;
+    }
+
+    private static boolean contains(long[] cells, int count, long cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Plays a slide of the packet and records it for unmakeMove(). Returns the DATA
+     * collected, or -1 if the first step is blocked, in which case nothing changes.
+     */
+    public int makeMove(Direction dir) {
+        Slide s = moveSlide;
+        if (!slide(playerX, playerY, dir, null, 0, s)) {
+            return -1;
+        }
+        if (undoTop + s.collected + 2 > undo.length) {
+            undo = Arrays.copyOf(undo, Math.max(undo.length * 2, undoTop + s.collected + 2));
+        }
+        for (int i = 0; i < s.collected; i++) {
+            set(s.cells[i], BLANK);
+            undo[undoTop++] = s.cells[i];
+        }
+        totalData -= s.collected;
+        undo[undoTop++] = s.collected;
+        undo[undoTop++] = (long) playerY * width + playerX;
+        playerX = s.endX;
+        playerY = s.endY;
+        return s.collected;
+    }
+
+    /** The same move as SlideSimulator.simulate gives for a BoardGraph. */
+    public MoveResult move(Direction dir) {
+        int collected = makeMove(dir);
+        if (collected < 0) {
+            return new MoveResult(false, false, 0);
+        }
+        return new MoveResult(true, type(playerX, playerY) == VIRUS, collected);
+    }
+
+    /** Takes back the last makeMove: restores the collected DATA and the packet. */
+    public void unmakeMove() {
+        if (undoTop == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        long from = undo[--undoTop];
+        int collected = (int) undo[--undoTop];
+        for (int i = 0; i < collected; i++) {
+            set(undo[--undoTop], DATA);
+        }
+        totalData += collected;
+        playerX = (int) (from % width);
+        playerY = (int) (from / width);
+    }
+
+    private void set(long cell, byte type) {
+        int x = (int) (cell % width);
+        int y = (int) (cell / width);
+        chunk(x >> CHUNK_BITS, y >> CHUNK_BITS)[(y & MASK) << CHUNK_BITS | (x & MASK)] = type;
+    }
+
+    private byte[] chunk(int cx, int cy) {
+        long key = (long) cy * chunksX + cx;
+        byte[] cells = chunks.get(key);
+        return cells != null ? cells : chunks.computeIfAbsent(key, k -> generate(cx, cy));
+    }
+
+    // Runs at most once per chunk, under the map's lock for that key
+    private byte[] generate(int cx, int cy) {
+        int x0 = cx << CHUNK_BITS;
+        int y0 = cy << CHUNK_BITS;
+        int w = Math.min(CHUNK, width - x0);
+        int h = Math.min(CHUNK, height - y0);
+
+        byte[] region = new byte[w * h];
+        new BoardRandomizer(mix(seed + mix((long) cy * chunksX + cx))).randomizeRegion(region, w, h);
+        byte[] cells = new byte[CHUNK * CHUNK];
+        Arrays.fill(cells, FIREWALL); // past the edge of the world; never read
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(region, y * w, cells, y << CHUNK_BITS, w);
+        }
+
+        // START with two open neighbours, the goal HUB with two, as Board lays them out
+        fix(cells, x0, y0, w, h, 0, 0, HUB);
+        fix(cells, x0, y0, w, h, 1, 0, BLANK);
+        fix(cells, x0, y0, w, h, 0, 1, BLANK);
+        fix(cells, x0, y0, w, h, width - 1, height - 1, HUB);
+        fix(cells, x0, y0, w, h, width - 2, height - 1, BLANK);
+        fix(cells, x0, y0, w, h, width - 1, height - 2, BLANK);
+        return cells;
+    }
+
+    private void fix(byte[] cells, int x0, int y0, int w, int h, int x, int y, byte type) {
+        if (x < x0 || x >= x0 + w || y < y0 || y >= y0 + h) {
+            return;
+        }
+        int i = (y - y0) << CHUNK_BITS | (x - x0);
+        if (cells[i] == DATA) totalData--;
+        cells[i] = type;
+    }
+
+    // SplitMix64 finalizer: unrelated seeds for neighbouring chunks
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}